@@ -0,0 +1,35 @@
+package edu.eci.arsw.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Ejecuta los benchmarks una vez por cada cantidad de hilos de
+ * {@code -Dbench.threads} (por defecto 1,4,16) y deja un JSON por corrida en
+ * {@code -Dbench.out} (por defecto target/jmh). Los argumentos se pasan tal
+ * cual a JMH, p. ej. {@code java -jar target/benchmarks.jar Fight -p defenders=2}.
+ */
+public final class BenchRunner {
+  private BenchRunner() {}
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cli = new CommandLineOptions(args);
+    Path out = Path.of(System.getProperty("bench.out", "target/jmh"));
+    Files.createDirectories(out);
+    for (String t : System.getProperty("bench.threads", "1,4,16").split(",")) {
+      int threads = Integer.parseInt(t.trim());
+      Options opts = new OptionsBuilder()
+              .parent(cli)
+              .threads(threads)
+              .resultFormat(ResultFormatType.JSON)
+              .result(out.resolve("jmh-t" + threads + ".json").toString())
+              .build();
+      new Runner(opts).run();
+    }
+  }
+}
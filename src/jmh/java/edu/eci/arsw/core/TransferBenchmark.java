@@ -0,0 +1,92 @@
+package edu.eci.arsw.core;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Una transferencia de 1 unidad entre dos cuentas distintas por operacion.
+ * {@code accounts=2} reproduce las demos (dos cuentas calientes); 4096 es
+ * el caso de baja contencion.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferBenchmark {
+  private static final long INITIAL = 1L << 40;
+  private static final Duration MAX_WAIT = Duration.ofSeconds(5);
+  private static final int BATCH = 64;
+
+  @Param({"2", "4096"})
+  public int accounts;
+
+  BankAccount[] bank;
+
+  @Setup(Level.Iteration)
+  public void setUp() {
+    bank = new BankAccount[accounts];
+    for (int i = 0; i < accounts; i++) bank[i] = new BankAccount(i, INITIAL);
+  }
+
+  @Benchmark
+  public long transferOrdered() {
+    var rnd = ThreadLocalRandom.current();
+    int from = rnd.nextInt(accounts);
+    int to = other(from, rnd.nextInt(accounts - 1));
+    TransferService.transferOrdered(bank[from], bank[to], 1);
+    return to;
+  }
+
+  @Benchmark
+  public long transferTryLock() throws InterruptedException {
+    var rnd = ThreadLocalRandom.current();
+    int from = rnd.nextInt(accounts);
+    int to = other(from, rnd.nextInt(accounts - 1));
+    TransferService.transferTryLock(bank[from], bank[to], 1, MAX_WAIT);
+    return to;
+  }
+
+  @Benchmark
+  public long transferOptimistic() {
+    var rnd = ThreadLocalRandom.current();
+    int from = rnd.nextInt(accounts);
+    int to = other(from, rnd.nextInt(accounts - 1));
+    TransferService.transferOptimistic(bank[from], bank[to], 1);
+    return to;
+  }
+
+  /** Lotes de {@link #BATCH} transferencias; el score queda por transferencia. */
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public int transferBatch() {
+    var rnd = ThreadLocalRandom.current();
+    List<Transfer> batch = new ArrayList<>(BATCH);
+    for (int i = 0; i < BATCH; i++) {
+      int from = rnd.nextInt(accounts);
+      batch.add(new Transfer(bank[from], bank[other(from, rnd.nextInt(accounts - 1))], 1));
+    }
+    return TransferService.transferBatch(batch).applied();
+  }
+
+  private static int other(int from, int draw) {
+    return draw >= from ? draw + 1 : draw;
+  }
+}
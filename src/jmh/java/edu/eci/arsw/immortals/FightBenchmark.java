@@ -0,0 +1,82 @@
+package edu.eci.arsw.immortals;
+
+import edu.eci.arsw.concurrency.PauseController;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Una pelea por operacion. Cada hilo JMH ataca con su propio inmortal a un
+ * defensor aleatorio de un arreglo compartido; como los atacantes nunca son
+ * defendidos, "naive" no puede formar ciclos de locks y se mide sin deadlocks.
+ * {@code defenders=2} es el caso de maxima contencion.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FightBenchmark {
+  private static final int HEALTH = 1 << 30;
+  private static final int DAMAGE = 10;
+
+  @State(Scope.Benchmark)
+  public static class Arena {
+    @Param({"ordered", "naive", "trylock", "stamped", "cas", "monitor"})
+    public String fight;
+    FightStrategy strategy;
+
+    @Param({"2", "1000", "100000"})
+    public int defenders;
+
+    final AtomicInteger attackerIds = new AtomicInteger();
+    final PauseController controller = new PauseController();
+    ScoreBoard scoreBoard;
+    AliveIndex population;
+    Immortal[] targets;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      strategy = FightStrategy.of(fight);
+      scoreBoard = new ScoreBoard();
+      population = new AliveIndex();
+      targets = new Immortal[defenders];
+      for (int i = 0; i < defenders; i++) {
+        targets[i] = new Immortal("Defender-" + i, HEALTH, DAMAGE, population, scoreBoard, controller,
+                new HealthEpochs(), strategy, Immortal.newBackoff());
+        population.add(targets[i]);
+      }
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Attacker {
+    Immortal self;
+
+    @Setup(Level.Iteration)
+    public void setUp(Arena arena) {
+      self = new Immortal("Attacker-" + arena.attackerIds.incrementAndGet(), HEALTH, DAMAGE,
+              arena.population, arena.scoreBoard, arena.controller, new HealthEpochs(), arena.strategy,
+              Immortal.newBackoff());
+    }
+  }
+
+  @Benchmark
+  public int fight(Arena arena, Attacker attacker) {
+    Immortal target = arena.targets[ThreadLocalRandom.current().nextInt(arena.defenders)];
+    attacker.self.fight(target);
+    return target.getHealth();
+  }
+}
@@ -0,0 +1,167 @@
+package edu.eci.arsw.app;
+
+import edu.eci.arsw.concurrency.AdaptiveBackoff;
+import edu.eci.arsw.concurrency.PauseResult;
+import edu.eci.arsw.immortals.ImmortalManager;
+import edu.eci.arsw.metrics.LatencyHistogram;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Modo {@code -Dmode=bench}: corre la simulacion sin UI, calienta, mide y
+ * reporta peleas/s, percentiles de latencia por pelea, latencia de pause/stop,
+ * GC y tasa de asignacion. Imprime texto y deja un JSON por corrida y una fila
+ * CSV acumulada en {@code -Dout} (por defecto target/bench).
+ */
+final class HeadlessBench {
+  private HeadlessBench() {}
+
+  record Result(String fight, String engine, int arenas, int count, int health, int damage,
+                double seconds, long fights, double fightsPerSec, int aliveAtEnd,
+                LatencyHistogram.Snapshot latency, PauseResult pause, long stopNanos,
+                long gcCount, long gcMillis, double allocMBPerSec, AdaptiveBackoff.Stats backoff) {}
+
+  static void run() throws IOException, InterruptedException {
+    int count = Integer.getInteger("count", 1000);
+    // Salud alta por defecto para que nadie muera durante la medicion.
+    int health = Integer.getInteger("health", 1_000_000);
+    int damage = Integer.getInteger("damage", 10);
+    String fight = System.getProperty("fight", "ordered");
+    String engine = System.getProperty("engine", "threads");
+    int arenas = Integer.getInteger("arenas", 1);
+    double warmup = Double.parseDouble(System.getProperty("warmup", "3"));
+    double duration = Double.parseDouble(System.getProperty("duration", "10"));
+    Path out = Path.of(System.getProperty("out", "target/bench"));
+
+    // close() y no solo stop(): con -Dfightlog vuelca la ultima tanda y cierra el segmento.
+    try (var manager = new ImmortalManager(count, fight, health, damage, engine, arenas)) {
+      var board = manager.scoreBoard();
+      board.timeFights(true);
+      manager.start();
+      Thread.sleep((long) (warmup * 1000));
+
+      board.fightLatency().reset();
+      long fights0 = board.totalFights();
+      long gcCount0 = gcCount();
+      long gcMillis0 = gcMillis();
+      long alloc0 = allocatedBytes();
+      long t0 = System.nanoTime();
+      Thread.sleep((long) (duration * 1000));
+      long fights1 = board.totalFights();
+      long elapsed = System.nanoTime() - t0;
+      long alloc1 = allocatedBytes();
+      long gcCount1 = gcCount();
+      long gcMillis1 = gcMillis();
+
+      PauseResult pause = manager.pause();
+      int alive = manager.aliveCount();
+      manager.resume();
+      long stopStart = System.nanoTime();
+      manager.stop();
+      long stopNanos = System.nanoTime() - stopStart;
+
+      double seconds = elapsed / 1e9;
+      var result = new Result(fight, engine, manager.arenaCount(), count, health, damage, seconds, fights1 - fights0,
+              (fights1 - fights0) / seconds, alive, board.fightLatency().snapshot(), pause, stopNanos,
+              gcCount1 - gcCount0, gcMillis1 - gcMillis0,
+              alloc0 < 0 ? -1 : (alloc1 - alloc0) / seconds / (1 << 20), manager.backoff().stats());
+
+      System.out.print(text(result));
+      Files.createDirectories(out);
+      Path json = out.resolve("bench-" + Instant.now().toEpochMilli() + ".json");
+      Files.writeString(json, json(result));
+      Path csv = out.resolve("bench.csv");
+      if (Files.exists(csv) && !CSV_HEADER.equals(firstLine(csv))) {
+        // Un CSV con otras columnas se aparta en vez de mezclarle filas de otro formato.
+        Files.move(csv, out.resolve("bench-" + Instant.now().toEpochMilli() + ".old.csv"));
+      }
+      if (!Files.exists(csv)) Files.writeString(csv, CSV_HEADER + "\n");
+      Files.writeString(csv, csvRow(result) + "\n", StandardOpenOption.APPEND);
+      System.out.println("Wrote " + json + " and " + csv);
+    }
+  }
+
+  static String text(Result r) {
+    var l = r.latency();
+    return String.format(Locale.ROOT, """
+            fight=%s engine=%s arenas=%d count=%d health=%d damage=%d
+            fights: %d in %.2f s -> %.0f fights/s (alive at end: %d)
+            fight latency (us): p50=%.2f p99=%.2f p999=%.2f max=%.2f (n=%d)
+            pause: %d/%d parked in %.3f ms%s | stop: %.3f ms
+            gc: %d collections, %d ms | allocation: %.1f MB/s
+            backoff: %d retries, %.1f ms wasted, failure rate %.2f
+            """,
+            r.fight(), r.engine(), r.arenas(), r.count(), r.health(), r.damage(),
+            r.fights(), r.seconds(), r.fightsPerSec(), r.aliveAtEnd(),
+            l.p50() / 1e3, l.p99() / 1e3, l.p999() / 1e3, l.max() / 1e3, l.count(),
+            r.pause().parked(), r.pause().running(), r.pause().quiesceNanos() / 1e6,
+            r.pause().quiesced() ? "" : " (timed out)", r.stopNanos() / 1e6,
+            r.gcCount(), r.gcMillis(), r.allocMBPerSec(),
+            r.backoff().retries(), r.backoff().wastedNanos() / 1e6, r.backoff().failureRate());
+  }
+
+  static String json(Result r) {
+    var l = r.latency();
+    return String.format(Locale.ROOT,
+            "{\"fight\":\"%s\",\"engine\":\"%s\",\"arenas\":%d,\"count\":%d,\"health\":%d,\"damage\":%d,"
+            + "\"seconds\":%.3f,\"fights\":%d,\"fightsPerSec\":%.1f,\"aliveAtEnd\":%d,"
+            + "\"latencyNs\":{\"p50\":%d,\"p99\":%d,\"p999\":%d,\"max\":%d,\"mean\":%.1f,\"count\":%d},"
+            + "\"pause\":{\"parked\":%d,\"running\":%d,\"nanos\":%d,\"quiesced\":%b},\"stopNanos\":%d,"
+            + "\"gc\":{\"count\":%d,\"millis\":%d},\"allocMBPerSec\":%.2f,"
+            + "\"backoff\":{\"retries\":%d,\"failures\":%d,\"wastedNanos\":%d,\"failureRate\":%.3f}}%n",
+            r.fight(), r.engine(), r.arenas(), r.count(), r.health(), r.damage(),
+            r.seconds(), r.fights(), r.fightsPerSec(), r.aliveAtEnd(),
+            l.p50(), l.p99(), l.p999(), l.max(), l.mean(), l.count(),
+            r.pause().parked(), r.pause().running(), r.pause().quiesceNanos(), r.pause().quiesced(), r.stopNanos(),
+            r.gcCount(), r.gcMillis(), r.allocMBPerSec(),
+            r.backoff().retries(), r.backoff().failures(), r.backoff().wastedNanos(), r.backoff().failureRate());
+  }
+
+  static final String CSV_HEADER = "timestamp,fight,engine,arenas,count,health,damage,seconds,fights,fights_per_sec,"
+          + "alive_at_end,p50_ns,p99_ns,p999_ns,max_ns,pause_ns,pause_quiesced,stop_ns,gc_count,gc_ms,alloc_mb_per_sec,"
+          + "backoff_retries,backoff_failures,backoff_wasted_ns,backoff_failure_rate";
+
+  static String csvRow(Result r) {
+    var l = r.latency();
+    var b = r.backoff();
+    return String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%d,%d,%.3f,%d,%.1f,%d,%d,%d,%d,%d,%d,%b,%d,%d,%d,%.2f,%d,%d,%d,%.3f",
+            Instant.now(), r.fight(), r.engine(), r.arenas(), r.count(), r.health(), r.damage(), r.seconds(),
+            r.fights(), r.fightsPerSec(), r.aliveAtEnd(), l.p50(), l.p99(), l.p999(), l.max(),
+            r.pause().quiesceNanos(), r.pause().quiesced(), r.stopNanos(),
+            r.gcCount(), r.gcMillis(), r.allocMBPerSec(),
+            b.retries(), b.failures(), b.wastedNanos(), b.failureRate());
+  }
+
+  private static String firstLine(Path file) throws IOException {
+    try (var lines = Files.lines(file)) {
+      return lines.findFirst().orElse("");
+    }
+  }
+
+  private static long gcCount() {
+    long n = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) n += Math.max(0, gc.getCollectionCount());
+    return n;
+  }
+
+  private static long gcMillis() {
+    long n = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) n += Math.max(0, gc.getCollectionTime());
+    return n;
+  }
+
+  /** Bytes asignados por todos los hilos desde el arranque, o -1 si la JVM no lo soporta. */
+  private static long allocatedBytes() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+            && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+      return threads.getTotalThreadAllocatedBytes();
+    }
+    return -1;
+  }
+}
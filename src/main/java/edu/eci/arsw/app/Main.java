@@ -1,13 +1,32 @@
 package edu.eci.arsw.app;
 
+import edu.eci.arsw.core.TransferService;
+import edu.eci.arsw.demos.BatchTransferDemo;
 import edu.eci.arsw.demos.DeadlockDemo;
+import edu.eci.arsw.demos.LedgerDemo;
+import edu.eci.arsw.demos.OptimisticTransferDemo;
 import edu.eci.arsw.demos.OrderedTransferDemo;
+import edu.eci.arsw.demos.TransferWorkload;
 import edu.eci.arsw.demos.TryLockTransferDemo;
+import edu.eci.arsw.immortals.FightLogReplay;
+import edu.eci.arsw.metrics.MetricsServer;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
 
 public final class Main {
   private Main() {}
   public static void main(String[] args) throws Exception {
     String mode = System.getProperty("mode", "ui");
+    String jfr = System.getProperty("jfr");
+    if (jfr != null) startRecording(Path.of(jfr));
+    Integer metricsPort = Integer.getInteger("metrics.port");
+    if (metricsPort != null) startMetrics(metricsPort);
     switch (mode) {
       case "demos" -> {
         String demo = System.getProperty("demo", "2");
@@ -15,17 +34,48 @@ public final class Main {
           case "1" -> DeadlockDemo.run();
           case "2" -> OrderedTransferDemo.run();
           case "3" -> TryLockTransferDemo.run();
-          default -> System.out.println("Use -Ddemo=1|2|3");
+          case "4" -> BatchTransferDemo.run();
+          case "5" -> LedgerDemo.run();
+          case "6" -> OptimisticTransferDemo.run();
+          case "7" -> TransferWorkload.run();
+          default -> System.out.println("Use -Ddemo=1|2|3|4|5|6|7");
         }
       }
       case "immortals", "ui" -> {
         int n = Integer.getInteger("count", 8);
         String fight = System.getProperty("fight", "ordered");
+        String engine = System.getProperty("engine", "threads");
         javax.swing.SwingUtilities.invokeLater(
-          () -> new edu.eci.arsw.highlandersim.ControlFrame(n, fight)
+          () -> new edu.eci.arsw.highlandersim.ControlFrame(n, fight, engine)
         );
       }
-      default -> System.out.println("Use -Dmode=immortals|demos|ui");
+      case "bench" -> HeadlessBench.run();
+      case "replay" -> FightLogReplay.main(new String[]{System.getProperty("fightlog", "target/fightlog"),
+              System.getProperty("checkpoint", "target/immortals.ckpt")});
+      default -> System.out.println("Use -Dmode=immortals|demos|ui|bench|replay");
+    }
+    // La UI sigue viva despues de main; en los demas modos el servidor no debe retener la JVM.
+    MetricsServer metrics = MetricsServer.global();
+    if (metrics != null && !mode.equals("ui") && !mode.equals("immortals")) metrics.close();
+  }
+
+  /** Sirve /metrics en 127.0.0.1; cada ImmortalManager se registra al arrancar. */
+  private static void startMetrics(int port) throws IOException {
+    MetricsServer server = MetricsServer.startGlobal(port);
+    server.register("transfers", TransferService::writeMetrics);
+    System.out.println("Metrics at http://127.0.0.1:" + server.port() + "/metrics");
+  }
+
+  /** Graba con el perfil jfr/immortals.jfc del classpath; el archivo se escribe al salir de la JVM. */
+  private static void startRecording(Path file) throws IOException, ParseException {
+    try (Reader jfc = new InputStreamReader(Main.class.getResourceAsStream("/jfr/immortals.jfc"),
+            StandardCharsets.UTF_8)) {
+      var recording = new Recording(Configuration.create(jfc));
+      recording.setName("immortals");
+      recording.setDestination(file);
+      recording.setDumpOnExit(true);
+      recording.start();
+      System.out.println("JFR recording to " + file.toAbsolutePath());
     }
   }
 }
@@ -0,0 +1,113 @@
+package edu.eci.arsw.concurrency;
+
+import edu.eci.arsw.metrics.LatencyHistogram;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Espera exponencial con jitter que se adapta a la contencion observada. Quien
+ * reintenta informa cada intento con {@link #onSuccess} o {@link #onFailure};
+ * con eso se mantiene una media movil de la tasa de fallos que agrega hasta
+ * {@value #CONTENTION_DOUBLINGS} duplicaciones a la espera base: sin contencion
+ * se espera casi {@code min}, con mucha se llega antes a {@code max}.
+ *
+ * <p>La media se actualiza sin sincronizar; bajo carrera se pierden muestras,
+ * lo que solo la hace un poco mas lenta en reaccionar. Un exito al primer
+ * intento solo suma a un {@link LongAdder} y baja la media si no es cero: sin
+ * contencion no escribe estado compartido, y el histograma de latencia cubre
+ * solo las operaciones que tuvieron que reintentar.
+ */
+public final class AdaptiveBackoff {
+  private static final int CONTENTION_DOUBLINGS = 4;
+  /** Tasa de fallos en punto fijo: {@code RATE_ONE} equivale a 1.0. */
+  private static final int RATE_ONE = 1 << 16;
+  private static final int RATE_SHIFT = 4;
+
+  public record Stats(long successes, long failures, long retries, long wastedNanos, double failureRate,
+                      LatencyHistogram.Snapshot successLatency) {}
+
+  private final long minNanos;
+  private final long maxNanos;
+  private volatile int failureRate = 0;
+  private final LongAdder successes = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder wastedNanos = new LongAdder();
+  private final LatencyHistogram successLatency = new LatencyHistogram();
+
+  public AdaptiveBackoff(Duration min, Duration max) {
+    this.minNanos = Math.max(1, min.toNanos());
+    this.maxNanos = Math.max(minNanos, max.toNanos());
+  }
+
+  /** Tope de espera del intento {@code attempt} (0 = el primero), sin jitter; sirve como timeout de tryLock. */
+  public long timeoutNanos(int attempt) {
+    int shift = Math.min(30, attempt + (failureRate * CONTENTION_DOUBLINGS + RATE_ONE / 2) / RATE_ONE);
+    long ceiling = minNanos << shift;
+    return ceiling > maxNanos || ceiling <= 0 ? maxNanos : ceiling;
+  }
+
+  /** Espera del intento {@code attempt}: uniforme entre la mitad del tope y el tope. */
+  public long delayNanos(int attempt) {
+    long ceiling = timeoutNanos(attempt);
+    return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+  }
+
+  /** Duerme antes de reintentar y cuenta la espera como tiempo perdido. */
+  public void pause(int attempt) throws InterruptedException {
+    TimeUnit.NANOSECONDS.sleep(retryDelay(attempt));
+  }
+
+  /** Como {@link #pause} pero sin dormir: devuelve la espera y la cuenta, para quien no puede bloquearse. */
+  public long retryDelay(int attempt) {
+    long delay = delayNanos(attempt);
+    retries.increment();
+    wastedNanos.add(delay);
+    return delay;
+  }
+
+  /** Un intento fallo por contencion despues de esperar {@code waitedNanos} (p. ej. un tryLock vencido). */
+  public void onFailure(long waitedNanos) {
+    failures.increment();
+    wastedNanos.add(waitedNanos);
+    int r = failureRate;
+    failureRate = r + ((RATE_ONE - r) >> RATE_SHIFT);
+  }
+
+  /**
+   * La operacion termino en el intento {@code attempt} (0 = el primero),
+   * {@code latencyNanos} despues de empezar; ver la nota de la clase.
+   */
+  public void onSuccess(long latencyNanos, int attempt) {
+    if (attempt > 0) {
+      onSuccess(latencyNanos);
+      return;
+    }
+    successes.increment();
+    int r = failureRate;
+    if (r != 0) failureRate = r - ((r + (1 << RATE_SHIFT) - 1) >> RATE_SHIFT);
+  }
+
+  /** La operacion termino {@code latencyNanos} despues de su primer intento; siempre entra al histograma. */
+  public void onSuccess(long latencyNanos) {
+    successes.increment();
+    successLatency.record(latencyNanos);
+    int r = failureRate;
+    if (r != 0) failureRate = r - ((r + (1 << RATE_SHIFT) - 1) >> RATE_SHIFT);
+  }
+
+  public double failureRate() {
+    return failureRate / (double) RATE_ONE;
+  }
+
+  public LatencyHistogram successLatency() {
+    return successLatency;
+  }
+
+  public Stats stats() {
+    return new Stats(successes.sum(), failures.sum(), retries.sum(), wastedNanos.sum(), failureRate(),
+            successLatency.snapshot());
+  }
+}
@@ -0,0 +1,103 @@
+package edu.eci.arsw.concurrency;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Buzon acotado de muchos productores y un consumidor, sin locks (cola de
+ * Vyukov). Cada mensaje es un remitente, un tipo y un valor entero guardados
+ * en arreglos paralelos, asi que enviar no crea objetos. Un productor reserva
+ * un slot con CAS sobre la cola y lo publica escribiendo su secuencia; el
+ * consumidor lee en orden y libera el slot para la siguiente vuelta.
+ */
+public final class MpscMailbox<T> {
+  /** Recibe cada mensaje en {@link #drain}. */
+  @FunctionalInterface
+  public interface Handler<T> {
+    void handle(T from, int kind, int value);
+  }
+
+  private final int capacity;
+  private final int mask;
+  private final AtomicLongArray sequence;
+  private final Object[] senders;
+  private final int[] kinds;
+  private final int[] values;
+  private final AtomicLong tail = new AtomicLong();
+  private volatile long head = 0;
+
+  /** @param capacity se redondea a la siguiente potencia de dos */
+  public MpscMailbox(int capacity) {
+    if (capacity < 2) throw new IllegalArgumentException("capacity must be at least 2");
+    this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+    this.mask = this.capacity - 1;
+    this.sequence = new AtomicLongArray(this.capacity);
+    for (int i = 0; i < this.capacity; i++) sequence.setPlain(i, i);
+    this.senders = new Object[this.capacity];
+    this.kinds = new int[this.capacity];
+    this.values = new int[this.capacity];
+  }
+
+  /**
+   * Encola un mensaje si quedan mas de {@code reserve} slots libres; devuelve
+   * false si no (nunca espera). Reservar slots permite que ciertos mensajes,
+   * como las respuestas, siempre tengan lugar.
+   */
+  public boolean offer(T from, int kind, int value, int reserve) {
+    long t;
+    int i;
+    while (true) {
+      t = tail.get();
+      if (t - head >= capacity - reserve) return false;
+      i = (int) (t & mask);
+      long dif = sequence.get(i) - t;
+      if (dif == 0) {
+        if (tail.compareAndSet(t, t + 1)) break;
+      } else if (dif < 0) {
+        return false;
+      }
+    }
+    senders[i] = from;
+    kinds[i] = kind;
+    values[i] = value;
+    // Escritura volatile (no solo release): quien consulta isEmpty() despues de
+    // leer otra volatile debe ver el mensaje.
+    sequence.set(i, t + 1);
+    return true;
+  }
+
+  /** Entrega los mensajes publicados, en orden; devuelve cuantos. Solo desde el consumidor. */
+  @SuppressWarnings("unchecked")
+  public int drain(Handler<T> handler) {
+    int n = 0;
+    long h = head;
+    while (true) {
+      int i = (int) (h & mask);
+      if (sequence.get(i) != h + 1) break;
+      T from = (T) senders[i];
+      int kind = kinds[i];
+      int value = values[i];
+      senders[i] = null;
+      sequence.set(i, h + capacity);
+      head = ++h;
+      handler.handle(from, kind, value);
+      n++;
+    }
+    return n;
+  }
+
+  /** Solo desde el consumidor. */
+  public boolean isEmpty() {
+    long h = head;
+    return sequence.get((int) (h & mask)) != h + 1;
+  }
+
+  /** Mensajes encolados (aproximado bajo concurrencia). */
+  public int size() {
+    return (int) Math.max(0, tail.get() - head);
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+}
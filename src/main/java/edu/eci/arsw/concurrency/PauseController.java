@@ -1,18 +1,28 @@
 package edu.eci.arsw.concurrency;
 
+import edu.eci.arsw.jfr.PauseEvent;
+import edu.eci.arsw.jfr.PauseWaitEvent;
+import edu.eci.arsw.metrics.LatencyHistogram;
+import java.time.Duration;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
 
 public final class PauseController {
+  private static final Duration DEFAULT_QUIESCE_TIMEOUT = Duration.ofMillis(500);
+  private static final BooleanSupplier NEVER = () -> false;
+
   private final ReentrantLock lock = new ReentrantLock();
   private final Condition unpaused = lock.newCondition();
   private final Condition allPaused = lock.newCondition();
-  
+  private final LatencyHistogram quiesceLatency = new LatencyHistogram();
+
   private volatile boolean paused = false;
   private volatile boolean shuttingDown = false;
-  private int pausedCount = 0;
-  private int runningCount = 0;
+  // Se escriben solo con el lock; son volatile para leerlos sin el desde metricas.
+  private volatile int parkedCount = 0;
+  private volatile int runningCount = 0;
+  private volatile PauseResult lastPause = null;
 
   
   public void registerThread() {
@@ -28,7 +38,7 @@ public final class PauseController {
     lock.lock();
     try {
       runningCount--;
-      if (paused && pausedCount >= runningCount) {
+      if (paused && parkedCount >= runningCount) {
         allPaused.signalAll();
       }
     } finally {
@@ -36,20 +46,36 @@ public final class PauseController {
     }
   }
 
-  public void pause() throws InterruptedException {
+  public PauseResult pause() throws InterruptedException {
+    return pause(DEFAULT_QUIESCE_TIMEOUT);
+  }
+
+  /**
+   * Pide la pausa y espera hasta {@code timeout} a que todos los hilos
+   * registrados se detengan en {@link #awaitIfPaused()}.
+   */
+  public PauseResult pause(Duration timeout) throws InterruptedException {
+    var event = new PauseEvent();
+    event.begin();
     lock.lock();
     try {
+      long start = System.nanoTime();
       paused = true;
-      pausedCount = 0;
 
-      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
-      while (pausedCount < runningCount && !shuttingDown) {
+      long deadline = start + timeout.toNanos();
+      while (parkedCount < runningCount && !shuttingDown) {
         long remaining = deadline - System.nanoTime();
         if (remaining <= 0) {
           break;
         }
-        allPaused.await(remaining, TimeUnit.NANOSECONDS);
+        allPaused.awaitNanos(remaining);
       }
+      long elapsed = System.nanoTime() - start;
+      quiesceLatency.record(elapsed);
+      PauseResult result = new PauseResult(parkedCount, runningCount, elapsed, parkedCount >= runningCount);
+      lastPause = result;
+      event.commit(result.parked(), result.running(), result.quiesced());
+      return result;
     } finally {
       lock.unlock();
     }
@@ -68,10 +94,38 @@ public final class PauseController {
     }
   }
 
+  /** Despierta a los hilos en pausa para que reevaluen su condicion de {@link #awaitIfPaused(BooleanSupplier)}. */
+  public void wakeParked() {
+    lock.lock();
+    try {
+      if (paused) unpaused.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
   public boolean paused() {
     return paused;
   }
 
+  public int parkedCount() {
+    return parkedCount;
+  }
+
+  public int runningCount() {
+    return runningCount;
+  }
+
+  /** La ultima pausa pedida, o null si nunca se pauso. */
+  public PauseResult lastPause() {
+    return lastPause;
+  }
+
+  /** Tiempo hasta detener a todos en cada {@link #pause}. */
+  public LatencyHistogram quiesceLatency() {
+    return quiesceLatency;
+  }
+
   public void shutdown() {
     lock.lock();
     try {
@@ -84,20 +138,39 @@ public final class PauseController {
     }
   }
 
-  
+  /**
+   * Punto seguro del ciclo de cada hilo. Sin pausa pedida cuesta dos lecturas
+   * volatile; solo si hay pausa toma el lock y se queda esperando el resume.
+   */
   public void awaitIfPaused() throws InterruptedException {
-    if (shuttingDown) return;
-    
+    awaitIfPaused(NEVER);
+  }
+
+  /**
+   * Como {@link #awaitIfPaused()}, pero tambien vuelve (aun en pausa) cuando
+   * {@code wake} da true; se evalua con el lock tomado, antes de esperar y cada
+   * vez que alguien llama a {@link #wakeParked()}. Lo usan los actores, que
+   * deben atender el buzon para que quien espera su respuesta pueda detenerse.
+   */
+  public void awaitIfPaused(BooleanSupplier wake) throws InterruptedException {
+    if (!paused || shuttingDown) return;
+
     lock.lockInterruptibly();
     try {
-      while (paused && !shuttingDown) {
-        if (pausedCount < runningCount) {
-          pausedCount++;
-          if (pausedCount >= runningCount) {
-            allPaused.signalAll();
-          }
+      if (!paused || shuttingDown || wake.getAsBoolean()) return;
+      var event = new PauseWaitEvent();
+      event.begin();
+      parkedCount++;
+      if (parkedCount >= runningCount) {
+        allPaused.signalAll();
+      }
+      try {
+        while (paused && !shuttingDown && !wake.getAsBoolean()) {
+          unpaused.await();
         }
-        unpaused.await();
+      } finally {
+        parkedCount--;
+        event.commit(shuttingDown);
       }
     } finally {
       lock.unlock();
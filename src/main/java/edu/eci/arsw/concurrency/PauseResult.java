@@ -0,0 +1,11 @@
+package edu.eci.arsw.concurrency;
+
+/**
+ * Resultado de {@link PauseController#pause()}.
+ *
+ * @param parked       hilos detenidos al terminar la espera
+ * @param running      hilos registrados en ese momento
+ * @param quiesceNanos lo que tardaron en detenerse (o el timeout, si no alcanzaron)
+ * @param quiesced     true si todos los registrados quedaron detenidos
+ */
+public record PauseResult(int parked, int running, long quiesceNanos, boolean quiesced) {}
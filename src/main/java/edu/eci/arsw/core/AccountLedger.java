@@ -0,0 +1,81 @@
+package edu.eci.arsw.core;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Saldos de muchas cuentas fuera del heap: un {@code long} por cuenta en un
+ * buffer directo indexado por id, leido y escrito con un {@link VarHandle}.
+ * En lugar de un lock por cuenta hay un arreglo fijo de locks (stripes); la
+ * cuenta {@code id} usa el stripe {@code id & (stripes - 1)}.
+ */
+public final class AccountLedger {
+  private static final VarHandle BALANCE =
+          MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+  private static final int DEFAULT_STRIPES = 1024;
+
+  private final ByteBuffer balances;
+  private final int accounts;
+  private final ReentrantLock[] stripes;
+
+  public AccountLedger(int accounts, long initial) {
+    this(accounts, initial, DEFAULT_STRIPES);
+  }
+
+  /** @param stripes cantidad de locks; se redondea a potencia de dos */
+  public AccountLedger(int accounts, long initial, int stripes) {
+    if (accounts <= 0) throw new IllegalArgumentException("accounts must be positive");
+    this.accounts = accounts;
+    this.balances = ByteBuffer.allocateDirect(Math.multiplyExact(accounts, Long.BYTES)).order(ByteOrder.nativeOrder());
+    for (int id = 0; id < accounts; id++) BALANCE.set(balances, offset(id), initial);
+    int n = Integer.highestOneBit(Math.max(1, Math.min(stripes, accounts)) * 2 - 1);
+    this.stripes = new ReentrantLock[n];
+    for (int i = 0; i < n; i++) this.stripes[i] = new ReentrantLock();
+    VarHandle.releaseFence();
+  }
+
+  public int size() { return accounts; }
+  public int stripes() { return stripes.length; }
+
+  public long balance(int id) {
+    return (long) BALANCE.getVolatile(balances, offset(id));
+  }
+
+  /** Suma de todos los saldos; no es atomica frente a transferencias en curso. */
+  public long totalBalance() {
+    long sum = 0;
+    for (int id = 0; id < accounts; id++) sum += balance(id);
+    return sum;
+  }
+
+  /** Bytes fuera del heap que ocupan los saldos. */
+  public long offHeapBytes() {
+    return (long) accounts * Long.BYTES;
+  }
+
+  ReentrantLock lockFor(int id) {
+    return stripes[stripeOf(id)];
+  }
+
+  ReentrantLock stripe(int index) {
+    return stripes[index];
+  }
+
+  int stripeOf(int id) {
+    return id & (stripes.length - 1);
+  }
+
+  /** Requiere tener el lock del stripe de {@code id}. */
+  void add(int id, long delta) {
+    int off = offset(id);
+    BALANCE.setVolatile(balances, off, (long) BALANCE.get(balances, off) + delta);
+  }
+
+  private int offset(int id) {
+    if (id < 0 || id >= accounts) throw new IndexOutOfBoundsException("account " + id);
+    return id * Long.BYTES;
+  }
+}
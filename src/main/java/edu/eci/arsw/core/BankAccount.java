@@ -2,15 +2,32 @@ package edu.eci.arsw.core;
 
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Cuenta con su lock. Toda escritura del saldo ocurre con el lock tomado y
+ * deja la version impar mientras dura, como un seqlock: asi las
+ * transferencias optimistas pueden leer sin lock y validar despues
+ * (ver {@link TransferService#transferOptimistic(java.util.List)}).
+ */
 public final class BankAccount {
   private final long id;
-  private long balance;
+  private volatile long balance;
+  /** Par mientras nadie escribe; cada escritura la sube en 2. */
+  private volatile long version = 0;
   private final ReentrantLock lock = new ReentrantLock();
 
   public BankAccount(long id, long initial) { this.id = id; this.balance = initial; }
   public long id() { return id; }
   public long balance() { return balance; }
   public ReentrantLock lock() { return lock; }
-  void depositInternal(long amount) { balance += amount; }
-  void withdrawInternal(long amount) { balance -= amount; }
+  long version() { return version; }
+  void depositInternal(long amount) { setInternal(balance + amount); }
+  void withdrawInternal(long amount) { setInternal(balance - amount); }
+
+  /** Requiere el lock tomado. */
+  void setInternal(long newBalance) {
+    long v = version;
+    version = v + 1;
+    balance = newBalance;
+    version = v + 2;
+  }
 }
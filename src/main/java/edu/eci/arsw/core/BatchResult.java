@@ -0,0 +1,16 @@
+package edu.eci.arsw.core;
+
+import java.util.List;
+
+/**
+ * Resultado de {@link TransferService#transferBatch}.
+ *
+ * @param outcomes  un resultado por transferencia, en el orden del lote
+ * @param groups    grupos de cuentas independientes en que se partio el lote (un bloqueo por grupo)
+ * @param nanos     tiempo total del lote
+ */
+public record BatchResult(List<Outcome> outcomes, int applied, int insufficientFunds, int groups, long nanos) {
+  public enum Outcome { APPLIED, INSUFFICIENT_FUNDS }
+
+  public int size() { return outcomes.size(); }
+}
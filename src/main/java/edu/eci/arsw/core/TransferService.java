@@ -1,54 +1,453 @@
 package edu.eci.arsw.core;
 
+import edu.eci.arsw.concurrency.AdaptiveBackoff;
+import edu.eci.arsw.jfr.LockWaitEvent;
+import edu.eci.arsw.jfr.TransferEvent;
+import edu.eci.arsw.metrics.PrometheusText;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
 public final class TransferService {
+  private static final AdaptiveBackoff TRY_LOCK_BACKOFF =
+          new AdaptiveBackoff(Duration.ofNanos(50_000), Duration.ofMillis(10));
+  private static final AdaptiveBackoff OPTIMISTIC_BACKOFF =
+          new AdaptiveBackoff(Duration.ofNanos(1_000), Duration.ofMillis(1));
+  private static final LongAdder APPLIED = new LongAdder();
+  private static final LongAdder INSUFFICIENT_FUNDS = new LongAdder();
+  private static final LongAdder TIMED_OUT = new LongAdder();
+  private static final LongAdder BATCHES = new LongAdder();
+
+  /** Transferencias hechas por este servicio desde que arranco la JVM; los lotes suman cada transferencia. */
+  public record Counters(long applied, long insufficientFunds, long timedOut, long batches) {}
+
+  public static Counters counters() {
+    return new Counters(APPLIED.sum(), INSUFFICIENT_FUNDS.sum(), TIMED_OUT.sum(), BATCHES.sum());
+  }
+
+  /** Escribe los contadores y la espera de {@code transferTryLock} en formato Prometheus. */
+  public static void writeMetrics(PrometheusText out) {
+    Counters c = counters();
+    out.type("transfers_total", "counter", "Transfers by outcome, batches included")
+            .sample("transfers_total", "outcome=\"applied\"", c.applied())
+            .sample("transfers_total", "outcome=\"insufficient_funds\"", c.insufficientFunds())
+            .sample("transfers_total", "outcome=\"timed_out\"", c.timedOut());
+    out.counter("transfer_batches_total", "transferBatch calls", c.batches());
+    AdaptiveBackoff.Stats backoff = TRY_LOCK_BACKOFF.stats();
+    out.counter("transfer_trylock_retries_total", "transferTryLock retries", backoff.retries());
+    out.counter("transfer_trylock_wasted_seconds_total", "Time lost in failed tryLocks and backoff pauses",
+            backoff.wastedNanos() / 1e9);
+    AdaptiveBackoff.Stats optimistic = OPTIMISTIC_BACKOFF.stats();
+    out.counter("transfer_optimistic_conflicts_total", "Optimistic commits that found a lock taken or a new version",
+            optimistic.failures());
+  }
+
   public static void transferNaive(BankAccount from, BankAccount to, long amount) {
     Objects.requireNonNull(from); Objects.requireNonNull(to);
+    var event = new TransferEvent(); event.begin();
+    var wait = new LockWaitEvent(); wait.begin();
+    String outcome = "insufficientFunds";
     var a = from.lock(); var b = to.lock();
     a.lock();
     try {
       sleepALittle();
       b.lock();
-      try { withdrawDeposit(from, to, amount); }
+      wait.commit("account", from.id(), to.id(), true, 1);
+      try { withdrawDeposit(from, to, amount); outcome = "applied"; }
       finally { b.unlock(); }
-    } finally { a.unlock(); }
+    } finally {
+      a.unlock();
+      finish(event, "naive", from.id(), to.id(), amount, outcome);
+    }
   }
   public static void transferOrdered(BankAccount from, BankAccount to, long amount) {
     Objects.requireNonNull(from); Objects.requireNonNull(to);
+    var event = new TransferEvent(); event.begin();
+    var wait = new LockWaitEvent(); wait.begin();
+    String outcome = "insufficientFunds";
     BankAccount first = from.id() < to.id() ? from : to;
     BankAccount second = from.id() < to.id() ? to : from;
     first.lock().lock();
     try {
       second.lock().lock();
-      try { withdrawDeposit(from, to, amount); }
+      wait.commit("account", first.id(), second.id(), true, 1);
+      try { withdrawDeposit(from, to, amount); outcome = "applied"; }
       finally { second.lock().unlock(); }
-    } finally { first.lock().unlock(); }
+    } finally {
+      first.lock().unlock();
+      finish(event, "ordered", from.id(), to.id(), amount, outcome);
+    }
   }
   public static void transferTryLock(BankAccount from, BankAccount to, long amount, Duration maxWait) throws InterruptedException {
+    transferTryLock(from, to, amount, maxWait, TRY_LOCK_BACKOFF);
+  }
+  public static void transferTryLock(BankAccount from, BankAccount to, long amount, Duration maxWait,
+                                     AdaptiveBackoff backoff) throws InterruptedException {
+    Objects.requireNonNull(from); Objects.requireNonNull(to);
+    var event = new TransferEvent(); event.begin();
+    String outcome = "timedOut";
+    try {
+      lockBothOrGiveUp(from.lock(), to.lock(), from.id(), to.id(), () -> withdrawDeposit(from, to, amount),
+              maxWait, backoff);
+      outcome = "applied";
+    } catch (IllegalArgumentException e) {
+      outcome = "insufficientFunds";
+      throw e;
+    } finally {
+      finish(event, "tryLock", from.id(), to.id(), amount, outcome);
+    }
+  }
+  public static void transferOrdered(AccountLedger ledger, int from, int to, long amount) {
+    Objects.requireNonNull(ledger);
+    var event = new TransferEvent(); event.begin();
+    var wait = new LockWaitEvent(); wait.begin();
+    String outcome = "insufficientFunds";
+    int sa = ledger.stripeOf(from); int sb = ledger.stripeOf(to);
+    ReentrantLock first = ledger.stripe(Math.min(sa, sb));
+    ReentrantLock second = ledger.stripe(Math.max(sa, sb));
+    first.lock();
+    try {
+      second.lock();
+      wait.commit("account", Math.min(from, to), Math.max(from, to), true, 1);
+      try { withdrawDeposit(ledger, from, to, amount); outcome = "applied"; }
+      finally { second.unlock(); }
+    } finally {
+      first.unlock();
+      finish(event, "ledgerOrdered", from, to, amount, outcome);
+    }
+  }
+  public static void transferTryLock(AccountLedger ledger, int from, int to, long amount, Duration maxWait) throws InterruptedException {
+    transferTryLock(ledger, from, to, amount, maxWait, TRY_LOCK_BACKOFF);
+  }
+  public static void transferTryLock(AccountLedger ledger, int from, int to, long amount, Duration maxWait,
+                                     AdaptiveBackoff backoff) throws InterruptedException {
+    Objects.requireNonNull(ledger);
+    var event = new TransferEvent(); event.begin();
+    String outcome = "timedOut";
+    try {
+      lockBothOrGiveUp(ledger.lockFor(from), ledger.lockFor(to), from, to,
+              () -> withdrawDeposit(ledger, from, to, amount), maxWait, backoff);
+      outcome = "applied";
+    } catch (IllegalArgumentException e) {
+      outcome = "insufficientFunds";
+      throw e;
+    } finally {
+      finish(event, "ledgerTryLock", from, to, amount, outcome);
+    }
+  }
+
+  /** Como {@link #transferOptimistic(List)} con una sola transferencia. */
+  public static void transferOptimistic(BankAccount from, BankAccount to, long amount) {
     Objects.requireNonNull(from); Objects.requireNonNull(to);
-    ReentrantLock a = from.lock(); ReentrantLock b = to.lock();
-    long deadline = System.nanoTime() + maxWait.toNanos();
-    while (System.nanoTime() < deadline) {
-      if (a.tryLock(10, TimeUnit.MILLISECONDS)) {
+    var event = new TransferEvent(); event.begin();
+    String outcome = "insufficientFunds";
+    try {
+      if (from == to) commitOptimistic(List.of(new Transfer(from, to, amount)));
+      else commitOptimistic(from, to, amount);
+      outcome = "applied";
+    } finally {
+      finish(event, "optimistic", from.id(), to.id(), amount, outcome);
+    }
+  }
+
+  /** El mismo protocolo que {@link #commitOptimistic(List)} para dos cuentas, sin arreglos ni listas. */
+  private static void commitOptimistic(BankAccount from, BankAccount to, long amount) {
+    BankAccount first = from.id() < to.id() ? from : to;
+    BankAccount second = first == from ? to : from;
+    long start = System.nanoTime();
+    for (int attempt = 0; ; attempt++) {
+      long vf = from.version();
+      long balance = from.balance();
+      long vt = to.version();
+      if (((vf | vt) & 1) == 0) {
+        if (balance < amount) {
+          if (from.version() == vf) throw new IllegalArgumentException("Insufficient funds");
+        } else if (first.lock().tryLock()) {
+          try {
+            if (second.lock().tryLock()) {
+              try {
+                if (from.version() == vf && to.version() == vt) {
+                  from.setInternal(balance - amount);
+                  to.setInternal(to.balance() + amount);
+                  OPTIMISTIC_BACKOFF.onSuccess(System.nanoTime() - start, attempt);
+                  return;
+                }
+              } finally {
+                second.lock().unlock();
+              }
+            }
+          } finally {
+            first.lock().unlock();
+          }
+        }
+      }
+      OPTIMISTIC_BACKOFF.onFailure(0);
+      if (attempt > 0) LockSupport.parkNanos(OPTIMISTIC_BACKOFF.retryDelay(attempt - 1));
+    }
+  }
+
+  /**
+   * Transaccion optimista sobre varias cuentas: lee saldo y version de cada
+   * una sin locks, aplica las transferencias en orden sobre esa copia y
+   * confirma tomando los locks con {@code tryLock} en orden de id, sin esperar
+   * nunca. Si una cuenta esta tomada o cambio de version desde la lectura,
+   * suelta lo tomado y reintenta (el primer reintento es inmediato, despues con
+   * la espera de {@link #optimisticBackoff()}). Se aplican todas o ninguna.
+   *
+   * @throws IllegalArgumentException si alguna transferencia no tiene fondos en
+   *         una lectura consistente; no se aplica nada
+   */
+  public static void transferOptimistic(List<Transfer> transaction) {
+    Objects.requireNonNull(transaction);
+    var event = new TransferEvent(); event.begin();
+    long total = 0;
+    for (Transfer t : transaction) total += t.amount();
+    String outcome = "insufficientFunds";
+    try {
+      commitOptimistic(transaction);
+      outcome = "applied";
+    } finally {
+      int applied = "applied".equals(outcome) ? transaction.size() : 0;
+      APPLIED.add(applied);
+      INSUFFICIENT_FUNDS.add(transaction.size() - applied);
+      event.commit("optimistic", -1, -1, total, transaction.size(), applied, outcome);
+    }
+  }
+
+  /** Conflictos y latencia de exito de las transacciones optimistas. */
+  public static AdaptiveBackoff optimisticBackoff() {
+    return OPTIMISTIC_BACKOFF;
+  }
+
+  private static void commitOptimistic(List<Transfer> transaction) {
+    BankAccount[] accounts = accountsById(transaction);
+    long[] versions = new long[accounts.length];
+    long[] balances = new long[accounts.length];
+    long start = System.nanoTime();
+    for (int attempt = 0; ; attempt++) {
+      if (read(accounts, versions, balances)) {
+        if (!applyTo(transaction, accounts, balances)) {
+          if (unchanged(accounts, versions)) throw new IllegalArgumentException("Insufficient funds");
+        } else if (commit(accounts, versions, balances)) {
+          OPTIMISTIC_BACKOFF.onSuccess(System.nanoTime() - start, attempt);
+          return;
+        }
+      }
+      OPTIMISTIC_BACKOFF.onFailure(0);
+      if (attempt > 0) LockSupport.parkNanos(OPTIMISTIC_BACKOFF.retryDelay(attempt - 1));
+    }
+  }
+
+  /** Cuentas distintas de la transaccion, ordenadas por id (orden de los tryLock). */
+  private static BankAccount[] accountsById(List<Transfer> transaction) {
+    List<BankAccount> out = new ArrayList<>();
+    for (Transfer t : transaction) {
+      if (!out.contains(t.from())) out.add(t.from());
+      if (!out.contains(t.to())) out.add(t.to());
+    }
+    out.sort(Comparator.comparingLong(BankAccount::id));
+    return out.toArray(new BankAccount[0]);
+  }
+
+  /** Lee version y luego saldo; false si alguna se esta escribiendo (version impar). */
+  private static boolean read(BankAccount[] accounts, long[] versions, long[] balances) {
+    for (int i = 0; i < accounts.length; i++) {
+      long v = accounts[i].version();
+      if ((v & 1) != 0) return false;
+      versions[i] = v;
+      balances[i] = accounts[i].balance();
+    }
+    return true;
+  }
+
+  private static boolean unchanged(BankAccount[] accounts, long[] versions) {
+    for (int i = 0; i < accounts.length; i++) {
+      if (accounts[i].version() != versions[i]) return false;
+    }
+    return true;
+  }
+
+  /** Aplica la transaccion sobre la copia {@code balances}; false si algun saldo quedaria negativo. */
+  private static boolean applyTo(List<Transfer> transaction, BankAccount[] accounts, long[] balances) {
+    for (Transfer t : transaction) {
+      int from = indexOf(accounts, t.from());
+      if (balances[from] < t.amount()) return false;
+      balances[from] -= t.amount();
+      balances[indexOf(accounts, t.to())] += t.amount();
+    }
+    return true;
+  }
+
+  private static int indexOf(BankAccount[] accounts, BankAccount account) {
+    for (int i = 0; ; i++) if (accounts[i] == account) return i;
+  }
+
+  /** tryLock en orden; con todo tomado valida las versiones leidas y escribe los saldos nuevos. */
+  private static boolean commit(BankAccount[] accounts, long[] versions, long[] balances) {
+    int locked = 0;
+    try {
+      while (locked < accounts.length && accounts[locked].lock().tryLock()) locked++;
+      if (locked < accounts.length || !unchanged(accounts, versions)) return false;
+      for (int i = 0; i < accounts.length; i++) accounts[i].setInternal(balances[i]);
+      return true;
+    } finally {
+      for (int i = locked - 1; i >= 0; i--) accounts[i].lock().unlock();
+    }
+  }
+
+  /** Espera adaptativa por defecto de {@code transferTryLock} (reintentos, tiempo perdido, latencia de exito). */
+  public static AdaptiveBackoff tryLockBackoff() {
+    return TRY_LOCK_BACKOFF;
+  }
+
+  /**
+   * Toma {@code a} y luego {@code b} con {@code tryLock}; si alguno no llega,
+   * suelta todo y reintenta. El timeout de cada tryLock y la espera entre
+   * intentos los decide {@code backoff} segun el intento y la contencion vista.
+   * {@code aId}/{@code bId} solo identifican las cuentas en el evento JFR.
+   */
+  private static void lockBothOrGiveUp(ReentrantLock a, ReentrantLock b, long aId, long bId, Runnable body,
+                                       Duration maxWait, AdaptiveBackoff backoff) throws InterruptedException {
+    var wait = new LockWaitEvent(); wait.begin();
+    long start = System.nanoTime();
+    long deadline = start + maxWait.toNanos();
+    for (int attempt = 0; ; attempt++) {
+      long tryStart = System.nanoTime();
+      long timeout = backoff.timeoutNanos(attempt);
+      if (a.tryLock(timeout, TimeUnit.NANOSECONDS)) {
+        boolean done = false;
         try {
-          if (b.tryLock(10, TimeUnit.MILLISECONDS)) {
-            try { withdrawDeposit(from, to, amount); return; }
+          if (b.tryLock(timeout, TimeUnit.NANOSECONDS)) {
+            wait.commit("account", aId, bId, true, attempt + 1);
+            try { body.run(); done = true; }
             finally { b.unlock(); }
           }
         } finally { a.unlock(); }
+        if (done) {
+          backoff.onSuccess(System.nanoTime() - start, attempt);
+          return;
+        }
+      }
+      backoff.onFailure(System.nanoTime() - tryStart);
+      if (System.nanoTime() >= deadline) {
+        wait.commit("account", aId, bId, false, attempt + 1);
+        throw new InterruptedException("transferTryLock timed out");
+      }
+      backoff.pause(attempt);
+    }
+  }
+
+  /**
+   * Aplica un lote de transferencias. Las cuentas se agrupan en componentes
+   * conectados (cuentas que aparecen juntas en alguna transferencia); cada grupo
+   * se bloquea una sola vez, en orden global de id, se revisan sus
+   * transferencias en el orden del lote contra saldos provisionales y al final
+   * se escribe el saldo neto de cada cuenta. Una transferencia sin fondos se
+   * rechaza sin afectar a las demas.
+   */
+  public static BatchResult transferBatch(List<Transfer> batch) {
+    Objects.requireNonNull(batch);
+    var event = new TransferEvent(); event.begin();
+    long start = System.nanoTime();
+    Map<Long, BankAccount> accounts = new HashMap<>();
+    Map<Long, Long> parent = new HashMap<>();
+    long total = 0;
+    for (Transfer t : batch) {
+      total += t.amount();
+      accounts.putIfAbsent(t.from().id(), t.from());
+      accounts.putIfAbsent(t.to().id(), t.to());
+      union(parent, t.from().id(), t.to().id());
+    }
+    Map<Long, List<Integer>> groups = new HashMap<>();
+    for (int i = 0; i < batch.size(); i++) {
+      groups.computeIfAbsent(find(parent, batch.get(i).from().id()), g -> new ArrayList<>()).add(i);
+    }
+    Map<Long, List<BankAccount>> groupAccounts = new HashMap<>();
+    for (BankAccount acc : accounts.values()) {
+      groupAccounts.computeIfAbsent(find(parent, acc.id()), g -> new ArrayList<>()).add(acc);
+    }
+
+    BatchResult.Outcome[] outcomes = new BatchResult.Outcome[batch.size()];
+    int applied = 0;
+    for (var entry : groups.entrySet()) {
+      List<Integer> group = entry.getValue();
+      List<BankAccount> locked = groupAccounts.get(entry.getKey());
+      locked.sort(Comparator.comparingLong(BankAccount::id));
+      for (BankAccount acc : locked) acc.lock().lock();
+      try {
+        Map<Long, Long> balances = new HashMap<>();
+        for (BankAccount acc : locked) balances.put(acc.id(), acc.balance());
+        for (int i : group) {
+          Transfer t = batch.get(i);
+          long available = balances.get(t.from().id());
+          if (available < t.amount()) {
+            outcomes[i] = BatchResult.Outcome.INSUFFICIENT_FUNDS;
+            continue;
+          }
+          balances.put(t.from().id(), available - t.amount());
+          balances.merge(t.to().id(), t.amount(), Long::sum);
+          outcomes[i] = BatchResult.Outcome.APPLIED;
+          applied++;
+        }
+        for (BankAccount acc : locked) {
+          long delta = balances.get(acc.id()) - acc.balance();
+          if (delta > 0) acc.depositInternal(delta);
+          else if (delta < 0) acc.withdrawInternal(-delta);
+        }
+      } finally {
+        for (int i = locked.size() - 1; i >= 0; i--) locked.get(i).lock().unlock();
       }
-      Thread.sleep(ThreadLocalRandom.current().nextInt(1, 5));
     }
-    throw new InterruptedException("transferTryLock timed out");
+    APPLIED.add(applied);
+    INSUFFICIENT_FUNDS.add(batch.size() - applied);
+    BATCHES.increment();
+    event.commit("batch", -1, -1, total, batch.size(), applied, applied == batch.size() ? "applied" : "partial");
+    return new BatchResult(List.of(outcomes), applied, batch.size() - applied, groups.size(),
+            System.nanoTime() - start);
   }
+
+  private static void finish(TransferEvent event, String method, long from, long to, long amount, String outcome) {
+    switch (outcome) {
+      case "applied" -> APPLIED.increment();
+      case "insufficientFunds" -> INSUFFICIENT_FUNDS.increment();
+      default -> TIMED_OUT.increment();
+    }
+    event.commit(method, from, to, amount, 1, "applied".equals(outcome) ? 1 : 0, outcome);
+  }
+
+  private static long find(Map<Long, Long> parent, long id) {
+    long root = id;
+    Long up;
+    while ((up = parent.get(root)) != null && up != root) root = up;
+    long node = id;
+    while ((up = parent.get(node)) != null && up != root) {
+      parent.put(node, root);
+      node = up;
+    }
+    return root;
+  }
+
+  private static void union(Map<Long, Long> parent, long a, long b) {
+    long ra = find(parent, a);
+    long rb = find(parent, b);
+    if (ra != rb) parent.put(Math.max(ra, rb), Math.min(ra, rb));
+  }
+
   private static void withdrawDeposit(BankAccount from, BankAccount to, long amount) {
     if (from.balance() < amount) throw new IllegalArgumentException("Insufficient funds");
     from.withdrawInternal(amount); to.depositInternal(amount);
   }
+  private static void withdrawDeposit(AccountLedger ledger, int from, int to, long amount) {
+    if (ledger.balance(from) < amount) throw new IllegalArgumentException("Insufficient funds");
+    ledger.add(from, -amount); ledger.add(to, amount);
+  }
   private static void sleepALittle() { try { Thread.sleep(5); } catch (InterruptedException ie) { Thread.currentThread().interrupt(); } }
 }
@@ -0,0 +1,56 @@
+package edu.eci.arsw.demos;
+
+import edu.eci.arsw.core.BankAccount;
+import edu.eci.arsw.core.BatchResult;
+import edu.eci.arsw.core.Transfer;
+import edu.eci.arsw.core.TransferService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Misma carga que OrderedTransferDemo (2000 transferencias entre dos cuentas), por llamada y por lotes. */
+public final class BatchTransferDemo {
+  private static final int TRANSFERS = 2000;
+  private static final int BATCH = Integer.getInteger("batch", 50);
+
+  private BatchTransferDemo() {}
+
+  public static void run() throws Exception {
+    var a = new BankAccount(1, 1000);
+    var b = new BankAccount(2, 1000);
+    long start = System.nanoTime();
+    try (var exec = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < TRANSFERS / 2; i++) {
+        exec.submit(() -> TransferService.transferOrdered(a, b, 1));
+        exec.submit(() -> TransferService.transferOrdered(b, a, 1));
+      }
+    }
+    long perCall = System.nanoTime() - start;
+
+    var c = new BankAccount(1, 1000);
+    var d = new BankAccount(2, 1000);
+    var applied = new AtomicInteger();
+    var rejected = new AtomicInteger();
+    start = System.nanoTime();
+    try (var exec = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int sent = 0; sent < TRANSFERS; sent += BATCH) {
+        List<Transfer> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+          batch.add(i % 2 == 0 ? new Transfer(c, d, 1) : new Transfer(d, c, 1));
+        }
+        exec.submit(() -> {
+          BatchResult r = TransferService.transferBatch(batch);
+          applied.addAndGet(r.applied());
+          rejected.addAndGet(r.insufficientFunds());
+        });
+      }
+    }
+    long batched = System.nanoTime() - start;
+
+    System.out.printf("Per-call: %d transfers in %.2f ms (%.0f transfers/s), total=%d%n",
+            TRANSFERS, perCall / 1e6, TRANSFERS / (perCall / 1e9), a.balance() + b.balance());
+    System.out.printf("Batched (%d per batch): %d applied, %d rejected in %.2f ms (%.0f transfers/s), total=%d%n",
+            BATCH, applied.get(), rejected.get(), batched / 1e6, TRANSFERS / (batched / 1e9), c.balance() + d.balance());
+  }
+}
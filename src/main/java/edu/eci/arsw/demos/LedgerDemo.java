@@ -0,0 +1,66 @@
+package edu.eci.arsw.demos;
+
+import edu.eci.arsw.core.AccountLedger;
+import edu.eci.arsw.core.BankAccount;
+import edu.eci.arsw.core.TransferService;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/** Mide memoria por cuenta de BankAccount (heap) contra AccountLedger (fuera del heap) y transfiere sobre el ledger. */
+public final class LedgerDemo {
+  private LedgerDemo() {}
+
+  public static void run() throws Exception {
+    int n = Integer.getInteger("accounts", 1_000_000);
+
+    long before = usedHeap();
+    BankAccount[] objects = new BankAccount[n];
+    for (int i = 0; i < n; i++) objects[i] = new BankAccount(i, 1000);
+    long heapPerAccount = (usedHeap() - before) / n;
+
+    long directBefore = directMemory();
+    long heapBefore = usedHeap();
+    var ledger = new AccountLedger(n, 1000);
+    long offHeap = directMemory() - directBefore;
+    long ledgerHeap = Math.max(0, usedHeap() - heapBefore);
+
+    System.out.printf("BankAccount x %d: ~%d bytes/account on heap (%d MB)%n",
+            n, heapPerAccount, heapPerAccount * n >> 20);
+    System.out.printf("AccountLedger x %d: %.1f bytes/account off heap + %.2f bytes/account of heap for %d lock stripes%n",
+            n, (double) offHeap / n, (double) ledgerHeap / n, ledger.stripes());
+    if (objects[n - 1].balance() != 1000) throw new AssertionError();
+
+    int transfers = 200_000;
+    long start = System.nanoTime();
+    try (var exec = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int t = 0; t < 8; t++) {
+        exec.submit(() -> {
+          var rnd = ThreadLocalRandom.current();
+          for (int i = 0; i < transfers / 8; i++) {
+            TransferService.transferOrdered(ledger, rnd.nextInt(n), rnd.nextInt(n), 1);
+          }
+        });
+      }
+    }
+    long nanos = System.nanoTime() - start;
+    System.out.printf("%d ledger transfers in %.1f ms; total=%d (expected %d)%n",
+            transfers, nanos / 1e6, ledger.totalBalance(), 1000L * n);
+  }
+
+  private static long usedHeap() throws InterruptedException {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      Thread.sleep(50);
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static long directMemory() {
+    for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if ("direct".equals(pool.getName())) return pool.getMemoryUsed();
+    }
+    return 0;
+  }
+}
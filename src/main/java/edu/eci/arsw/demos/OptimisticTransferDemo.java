@@ -0,0 +1,81 @@
+package edu.eci.arsw.demos;
+
+import edu.eci.arsw.core.BankAccount;
+import edu.eci.arsw.core.Transfer;
+import edu.eci.arsw.core.TransferService;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transferencias optimistas contra las de locks: la misma carga aleatoria con 2
+ * cuentas (contencion alta) y con 1024 (baja), revisando que el dinero total se
+ * conserve, y una transaccion de tres cuentas en ronda que se aplica completa o nada.
+ */
+public final class OptimisticTransferDemo {
+  private static final int THREADS = 16;
+  private static final int PER_THREAD = Integer.getInteger("transfers", 20_000);
+  private static final long INITIAL = 1_000_000;
+
+  private interface Path { void transfer(BankAccount from, BankAccount to) throws Exception; }
+
+  private OptimisticTransferDemo() {}
+
+  public static void run() throws Exception {
+    for (int accounts : new int[]{2, 1024}) {
+      measure("ordered", accounts, (a, b) -> TransferService.transferOrdered(a, b, 1));
+      measure("tryLock", accounts, (a, b) -> TransferService.transferTryLock(a, b, 1, Duration.ofSeconds(5)));
+      measure("optimistic", accounts, (a, b) -> TransferService.transferOptimistic(a, b, 1));
+    }
+
+    var x = new BankAccount(1, 1000);
+    var y = new BankAccount(2, 1000);
+    var z = new BankAccount(3, 1000);
+    var rejected = new AtomicInteger();
+    try (var exec = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < 1000; i++) {
+        exec.submit(() -> {
+          try {
+            TransferService.transferOptimistic(
+                    List.of(new Transfer(x, y, 3), new Transfer(y, z, 2), new Transfer(z, x, 1)));
+          } catch (IllegalArgumentException insufficient) {
+            rejected.incrementAndGet();
+          }
+        });
+      }
+    }
+    var stats = TransferService.optimisticBackoff().stats();
+    System.out.printf("Ring of 3 accounts, 1000 transactions (%d rejected whole): x=%d y=%d z=%d total=%d (expected 3000)%n",
+            rejected.get(), x.balance(), y.balance(), z.balance(), x.balance() + y.balance() + z.balance());
+    System.out.printf("Optimistic commits: %d, conflicts: %d, retries: %d%n",
+            stats.successes(), stats.failures(), stats.retries());
+  }
+
+  private static void measure(String name, int accounts, Path path) throws Exception {
+    BankAccount[] bank = new BankAccount[accounts];
+    for (int i = 0; i < accounts; i++) bank[i] = new BankAccount(i, INITIAL);
+    long start = System.nanoTime();
+    try (var exec = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int t = 0; t < THREADS; t++) {
+        exec.submit(() -> {
+          var rnd = ThreadLocalRandom.current();
+          for (int i = 0; i < PER_THREAD; i++) {
+            int from = rnd.nextInt(accounts);
+            int to = rnd.nextInt(accounts - 1);
+            path.transfer(bank[from], bank[to >= from ? to + 1 : to]);
+          }
+          return null;
+        });
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    long total = 0;
+    for (BankAccount acc : bank) total += acc.balance();
+    int transfers = THREADS * PER_THREAD;
+    System.out.printf("%-10s accounts=%-5d %d transfers in %.1f ms (%.0f transfers/s), total %s%n",
+            name, accounts, transfers, elapsed / 1e6, transfers / (elapsed / 1e9),
+            total == accounts * INITIAL ? "conserved" : "BROKEN: " + total);
+  }
+}
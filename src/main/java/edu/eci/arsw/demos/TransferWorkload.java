@@ -0,0 +1,216 @@
+package edu.eci.arsw.demos;
+
+import edu.eci.arsw.concurrency.AdaptiveBackoff;
+import edu.eci.arsw.core.BankAccount;
+import edu.eci.arsw.core.Transfer;
+import edu.eci.arsw.core.TransferService;
+import edu.eci.arsw.metrics.LatencyHistogram;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Carga de transferencias con cuentas elegidas segun una Zipf: con
+ * {@code skew=0} todas las cuentas son igual de probables y con skew cerca de 1
+ * unas pocas concentran casi todo el trafico, como pasa con cuentas reales.
+ * Corre cualquier estrategia de {@link TransferService} durante un tiempo fijo y
+ * reporta throughput, percentiles de latencia por llamada, reintentos,
+ * timeouts, rechazos por fondos y si el dinero total se conservo.
+ *
+ * <p>Propiedades: {@code -Daccounts} (1000), {@code -Dskew} (0.99),
+ * {@code -Dthreads} (16), {@code -Dvirtual} (true), {@code -Damount} (1; "a..b"
+ * uniforme o "exp:media"), {@code -Dduration} (5 s),
+ * {@code -Dstrategy=ordered|trylock|optimistic|batch} (ordered) y
+ * {@code -Dbatch} (50, solo para "batch").
+ */
+public final class TransferWorkload {
+  private static final long INITIAL = 1_000_000;
+  private static final Duration MAX_WAIT = Duration.ofMillis(200);
+
+  public record Config(int accounts, double skew, int threads, boolean virtualThreads, String amount,
+                       Duration duration, String strategy, int batch) {
+    public Config {
+      if (accounts < 2) throw new IllegalArgumentException("need at least 2 accounts");
+      if (skew < 0) throw new IllegalArgumentException("skew must be >= 0");
+      if (!List.of("ordered", "trylock", "optimistic", "batch").contains(strategy)) {
+        throw new IllegalArgumentException("Unknown strategy: " + strategy);
+      }
+      Amounts.parse(amount);
+    }
+
+    public static Config fromSystemProperties() {
+      return new Config(Integer.getInteger("accounts", 1000),
+              Double.parseDouble(System.getProperty("skew", "0.99")),
+              Integer.getInteger("threads", 16),
+              Boolean.parseBoolean(System.getProperty("virtual", "true")),
+              System.getProperty("amount", "1"),
+              Duration.ofMillis((long) (Double.parseDouble(System.getProperty("duration", "5")) * 1000)),
+              System.getProperty("strategy", "ordered").toLowerCase(Locale.ROOT),
+              Integer.getInteger("batch", 50));
+    }
+  }
+
+  /**
+   * @param calls             llamadas a {@link TransferService} (un lote cuenta como una)
+   * @param applied           transferencias aplicadas
+   * @param insufficientFunds transferencias rechazadas por saldo
+   * @param timedOut          llamadas de "trylock" que agotaron {@code MAX_WAIT}
+   * @param retries           reintentos (tryLock) o conflictos (optimistic)
+   * @param hottestShare      fraccion del trafico que se llevo la cuenta mas usada
+   */
+  public record Result(Config config, double seconds, long calls, long applied, long insufficientFunds,
+                       long timedOut, long retries, double hottestShare, LatencyHistogram.Snapshot latency,
+                       long total, long expectedTotal) {
+    public boolean conserved() { return total == expectedTotal; }
+    public double transfersPerSec() { return applied / seconds; }
+  }
+
+  private interface Amounts {
+    long next(ThreadLocalRandom rnd);
+
+    static Amounts parse(String spec) {
+      String s = spec.trim();
+      if (s.startsWith("exp:")) {
+        double mean = Double.parseDouble(s.substring(4));
+        if (mean <= 0) throw new IllegalArgumentException("exp mean must be > 0: " + spec);
+        return rnd -> 1 + (long) (-mean * Math.log(1 - rnd.nextDouble()));
+      }
+      int range = s.indexOf("..");
+      if (range > 0) {
+        long lo = Long.parseLong(s.substring(0, range));
+        long hi = Long.parseLong(s.substring(range + 2));
+        if (lo < 0 || hi < lo) throw new IllegalArgumentException("bad amount range: " + spec);
+        return rnd -> rnd.nextLong(lo, hi + 1);
+      }
+      long fixed = Long.parseLong(s);
+      if (fixed < 0) throw new IllegalArgumentException("negative amount: " + spec);
+      return rnd -> fixed;
+    }
+  }
+
+  /** Rango 0..n-1 con probabilidad proporcional a 1/(k+1)^skew: CDF precalculada y busqueda binaria. */
+  static final class Zipf {
+    private final double[] cdf;
+
+    Zipf(int n, double skew) {
+      cdf = new double[n];
+      double sum = 0;
+      for (int k = 0; k < n; k++) cdf[k] = sum += 1 / Math.pow(k + 1, skew);
+      for (int k = 0; k < n; k++) cdf[k] /= sum;
+      cdf[n - 1] = 1;
+    }
+
+    int next(ThreadLocalRandom rnd) {
+      int i = Arrays.binarySearch(cdf, rnd.nextDouble());
+      return i >= 0 ? i : -i - 1;
+    }
+  }
+
+  private TransferWorkload() {}
+
+  public static void run() throws InterruptedException {
+    Result r = run(Config.fromSystemProperties());
+    System.out.print(text(r));
+  }
+
+  public static Result run(Config c) throws InterruptedException {
+    BankAccount[] bank = new BankAccount[c.accounts()];
+    for (int i = 0; i < bank.length; i++) bank[i] = new BankAccount(i, INITIAL);
+    var zipf = new Zipf(c.accounts(), c.skew());
+    var amounts = Amounts.parse(c.amount());
+    var latency = new LatencyHistogram();
+    var calls = new LongAdder();
+    var applied = new LongAdder();
+    var rejected = new LongAdder();
+    var timedOut = new LongAdder();
+    var hits = new LongAdder[bank.length];
+    for (int i = 0; i < hits.length; i++) hits[i] = new LongAdder();
+    var tryLockBackoff = new AdaptiveBackoff(Duration.ofNanos(20_000), Duration.ofMillis(5));
+    long conflicts0 = TransferService.optimisticBackoff().stats().failures();
+
+    long start = System.nanoTime();
+    long deadline = start + c.duration().toNanos();
+    Runnable worker = () -> {
+      var rnd = ThreadLocalRandom.current();
+      List<Transfer> batch = new ArrayList<>(c.batch());
+      while (System.nanoTime() < deadline) {
+        int n = c.strategy().equals("batch") ? c.batch() : 1;
+        batch.clear();
+        for (int i = 0; i < n; i++) {
+          int from = zipf.next(rnd);
+          int to;
+          do to = zipf.next(rnd); while (to == from);
+          hits[from].increment();
+          hits[to].increment();
+          batch.add(new Transfer(bank[from], bank[to], amounts.next(rnd)));
+        }
+        long t0 = System.nanoTime();
+        try {
+          Transfer t = batch.get(0);
+          switch (c.strategy()) {
+            case "ordered" -> TransferService.transferOrdered(t.from(), t.to(), t.amount());
+            case "trylock" -> TransferService.transferTryLock(t.from(), t.to(), t.amount(), MAX_WAIT, tryLockBackoff);
+            case "optimistic" -> TransferService.transferOptimistic(t.from(), t.to(), t.amount());
+            default -> {
+              var r = TransferService.transferBatch(batch);
+              applied.add(r.applied());
+              rejected.add(r.insufficientFunds());
+              n = 0;
+            }
+          }
+          applied.add(n);
+        } catch (IllegalArgumentException insufficient) {
+          rejected.add(n);
+        } catch (InterruptedException timeout) {
+          // transferTryLock avisa el timeout con InterruptedException; no hay interrupcion real que conservar.
+          timedOut.increment();
+        }
+        latency.record(System.nanoTime() - t0);
+        calls.increment();
+      }
+    };
+    var builder = c.virtualThreads() ? Thread.ofVirtual() : Thread.ofPlatform();
+    List<Thread> threads = new ArrayList<>(c.threads());
+    for (int i = 0; i < c.threads(); i++) threads.add(builder.name("workload-" + i).start(worker));
+    for (Thread t : threads) t.join();
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    long total = 0;
+    long hottest = 0;
+    long touched = 0;
+    for (int i = 0; i < bank.length; i++) {
+      total += bank[i].balance();
+      hottest = Math.max(hottest, hits[i].sum());
+      touched += hits[i].sum();
+    }
+    long retries = switch (c.strategy()) {
+      case "trylock" -> tryLockBackoff.stats().retries();
+      case "optimistic" -> TransferService.optimisticBackoff().stats().failures() - conflicts0;
+      default -> 0;
+    };
+    return new Result(c, seconds, calls.sum(), applied.sum(), rejected.sum(), timedOut.sum(), retries,
+            touched == 0 ? 0 : (double) hottest / touched, latency.snapshot(), total, INITIAL * bank.length);
+  }
+
+  static String text(Result r) {
+    Config c = r.config();
+    var l = r.latency();
+    return String.format(Locale.ROOT, """
+            strategy=%s accounts=%d skew=%.2f threads=%d (%s) amount=%s duration=%.1f s%s
+            %d transfers applied in %.2f s -> %.0f transfers/s (%d calls; hottest account in %.1f%% of legs)
+            latency per call (us): p50=%.2f p90=%.2f p99=%.2f p999=%.2f max=%.2f
+            insufficient funds: %d | timed out: %d | retries/conflicts: %d
+            total money: %d (expected %d) -> %s
+            """,
+            c.strategy(), c.accounts(), c.skew(), c.threads(), c.virtualThreads() ? "virtual" : "platform",
+            c.amount(), c.duration().toMillis() / 1e3, c.strategy().equals("batch") ? " batch=" + c.batch() : "",
+            r.applied(), r.seconds(), r.transfersPerSec(), r.calls(), r.hottestShare() * 100,
+            l.p50() / 1e3, l.p90() / 1e3, l.p99() / 1e3, l.p999() / 1e3, l.max() / 1e3,
+            r.insufficientFunds(), r.timedOut(), r.retries(),
+            r.total(), r.expectedTotal(), r.conserved() ? "conserved" : "NOT conserved");
+  }
+}
@@ -1,29 +1,73 @@
 package edu.eci.arsw.highlandersim;
 
-import edu.eci.arsw.immortals.Immortal;
+import edu.eci.arsw.concurrency.PauseResult;
+import edu.eci.arsw.immortals.ArenaStatus;
+import edu.eci.arsw.immortals.FightStrategy;
+import edu.eci.arsw.immortals.HealthSnapshot;
 import edu.eci.arsw.immortals.ImmortalManager;
+import edu.eci.arsw.immortals.ScoreBoard;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.util.List;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Panel de control. Todo lo que toca la simulacion (crear, pausar, recorrer la
+ * poblacion) corre en un hilo de control aparte; el EDT solo recibe resultados
+ * ya armados, asi que la ventana responde igual con 8 o con 100k inmortales.
+ */
 public final class ControlFrame extends JFrame {
 
-  private ImmortalManager manager;
-  private final JTextArea output = new JTextArea(14, 40);
+  private static final long REFRESH_MS = Long.getLong("ui.refreshMs", 500);
+  /** Muestras de telemetria que dibuja el grafico. */
+  private static final int CHART_SAMPLES = 600;
+  /** Archivo de los botones Checkpoint/Restore. */
+  private static final Path CHECKPOINT = Path.of(System.getProperty("checkpoint", "target/immortals.ckpt"));
+
+  /** Solo se asigna en el hilo de control; el EDT lo lee para saber si hay simulacion. */
+  private volatile ImmortalManager manager;
+  private final ScheduledExecutorService control = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "control-frame");
+    t.setDaemon(true);
+    return t;
+  });
+  private final PopulationTableModel population = new PopulationTableModel();
+  /** Ultimas filas enviadas al EDT; solo las usa el hilo de control. */
+  private PopulationTableModel.Rows posted = PopulationTableModel.Rows.EMPTY;
+  private final TelemetryChart chart = new TelemetryChart();
+  private final JLabel summary = new JLabel(" ");
+  private final JTextArea output = new JTextArea(6, 40);
   private final JButton startBtn = new JButton("Start");
   private final JButton pauseAndCheckBtn = new JButton("Pause & Check");
+  private final JButton liveCheckBtn = new JButton("Live Check");
   private final JButton resumeBtn = new JButton("Resume");
   private final JButton stopBtn = new JButton("Stop");
   private final JButton removeDeadBtn = new JButton("Remove Dead");
+  private final JButton checkpointBtn = new JButton("Checkpoint");
+  private final JButton restoreBtn = new JButton("Restore");
 
-  private final JSpinner countSpinner = new JSpinner(new SpinnerNumberModel(8, 2, 5000, 1));
+  private final JSpinner countSpinner = new JSpinner(new SpinnerNumberModel(8, 2, 1_000_000, 100));
   private final JSpinner healthSpinner = new JSpinner(new SpinnerNumberModel(100, 10, 10000, 10));
   private final JSpinner damageSpinner = new JSpinner(new SpinnerNumberModel(10, 1, 1000, 1));
-  private final JComboBox<String> fightMode = new JComboBox<>(new String[]{"ordered", "naive"});
+  private final JComboBox<String> fightMode = new JComboBox<>(FightStrategy.MODES);
+  private final JComboBox<String> engineMode = new JComboBox<>(new String[]{"threads", "actors", "arrays", "rounds"});
 
   public ControlFrame(int count, String fight) {
+    this(count, fight, "threads");
+  }
+
+  public ControlFrame(int count, String fight, String engine) {
     setTitle("Highlander Simulator — ARSW");
     setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     setLayout(new BorderLayout(8,8));
@@ -39,25 +83,48 @@ public final class ControlFrame extends JFrame {
     top.add(new JLabel("Fight:"));
     fightMode.setSelectedItem(fight);
     top.add(fightMode);
+    top.add(new JLabel("Engine:"));
+    engineMode.setSelectedItem(engine);
+    top.add(engineMode);
     add(top, BorderLayout.NORTH);
 
+    JTable table = new JTable(population);
+    table.setFillsViewportHeight(true);
     output.setEditable(false);
     output.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-    add(new JScrollPane(output), BorderLayout.CENTER);
+    JPanel center = new JPanel(new BorderLayout(4, 4));
+    center.add(summary, BorderLayout.NORTH);
+    JTabbedPane views = new JTabbedPane();
+    views.addTab("Population", new JScrollPane(table));
+    views.addTab("Telemetry", chart);
+    center.add(new JSplitPane(JSplitPane.VERTICAL_SPLIT, views, new JScrollPane(output)), BorderLayout.CENTER);
+    add(center, BorderLayout.CENTER);
 
     JPanel bottom = new JPanel(new FlowLayout(FlowLayout.CENTER));
     bottom.add(startBtn);
     bottom.add(pauseAndCheckBtn);
+    bottom.add(liveCheckBtn);
     bottom.add(resumeBtn);
     bottom.add(stopBtn);
     bottom.add(removeDeadBtn);
+    bottom.add(checkpointBtn);
+    bottom.add(restoreBtn);
     add(bottom, BorderLayout.SOUTH);
 
     startBtn.addActionListener(this::onStart);
     pauseAndCheckBtn.addActionListener(this::onPauseAndCheck);
+    liveCheckBtn.addActionListener(this::onLiveCheck);
     resumeBtn.addActionListener(this::onResume);
     stopBtn.addActionListener(this::onStop);
     removeDeadBtn.addActionListener(this::onRemoveDead);
+    checkpointBtn.addActionListener(this::onCheckpoint);
+    restoreBtn.addActionListener(this::onRestore);
+    addWindowListener(new WindowAdapter() {
+      // EXIT_ON_CLOSE termina la JVM despues de esto: se cierra la simulacion para no perder el final del log.
+      @Override public void windowClosing(WindowEvent e) { closeOnExit(); }
+      @Override public void windowClosed(WindowEvent e) { control.shutdownNow(); }
+    });
+    control.scheduleWithFixedDelay(this::refresh, REFRESH_MS, REFRESH_MS, TimeUnit.MILLISECONDS);
 
     pack();
     setLocationByPlatform(true);
@@ -65,86 +132,190 @@ public final class ControlFrame extends JFrame {
   }
 
   private void onStart(ActionEvent e) {
-    safeStop();
     int n = (Integer) countSpinner.getValue();
     int health = (Integer) healthSpinner.getValue();
     int damage = (Integer) damageSpinner.getValue();
     String fight = (String) fightMode.getSelectedItem();
-    manager = new ImmortalManager(n, fight, health, damage);
-    manager.start();
-    output.setText(String.format("Simulation started with %d immortals (health=%d, damage=%d, fight=%s)%n",
-            n, health, damage, fight));
+    String engine = (String) engineMode.getSelectedItem();
+    control.execute(() -> {
+      safeStop();
+      var m = new ImmortalManager(n, fight, health, damage, engine);
+      m.start();
+      manager = m;
+      refresh();
+      log(String.format("Simulation started with %d immortals (health=%d, damage=%d, fight=%s, engine=%s)%n",
+              n, health, damage, fight, engine), true);
+    });
   }
 
   private void onPauseAndCheck(ActionEvent e) {
-    int damage = (Integer) damageSpinner.getValue();
-    if (manager == null) return;
-    manager.pause();
-    List<Immortal> pop = manager.populationSnapshot();
-    long sum = 0;
-    int alive = 0;
-    int dead = 0;
-
-    int initialN = (Integer) countSpinner.getValue();
-    int initialHealth = (Integer) healthSpinner.getValue();
-    long expectedTotal = (long) initialN * (long) initialHealth;
-
-    StringBuilder sb = new StringBuilder();
-    sb.append(String.format("%-14s | %5s | %s%n", "Immortal", "Health", "Status"));
-    sb.append("----------------------------------------\n");
-
-    for (Immortal im : pop) {
-      int h = im.getHealth();
-      sum += h;
-      if (im.isAlive()) {
-        alive++;
-        sb.append(String.format("%-14s : %5d | ALIVE%n", im.name(), h));
-      } else {
-        dead++;
-        sb.append(String.format("%-14s : %5d | DEAD%n", im.name(), h));
-      }
-    }
+    control.execute(this::pauseAndCheck);
+  }
 
-    long healthLost = expectedTotal - sum;
+  /** Lo esperado sale del manager (y no de los spinners) para que valga tambien tras restaurar un checkpoint. */
+  private void pauseAndCheck() {
+    ImmortalManager m = manager;
+    if (m == null) return;
+    long expectedTotal = m.initialTotalHealth();
+    PauseResult paused = m.pause();
+    PopulationTableModel.Rows rows = refresh();
+    ScoreBoard.Snapshot score = m.scoreBoard().snapshot();
+    log(String.format("Total Health: %d (Expected: %d)%n", rows.totalHealth, expectedTotal - score.healthLost())
+            + String.format("Health Lost: %d%n", expectedTotal - rows.totalHealth)
+            + String.format("Alive: %d | Dead: %d%n", rows.aliveCount, rows.deadCount())
+            + String.format("Fights: %d | Kills: %d | Damage: %d%n", score.fights(), score.kills(), score.damageDealt())
+            + topWinner(score.wins())
+            + String.format("Paused %d/%d threads in %.2f ms%s%n", paused.parked(), paused.running(),
+                    paused.quiesceNanos() / 1e6, paused.quiesced() ? "" : " (TIMED OUT)")
+            + arenaLines(m), true);
+  }
+
+  private static String topWinner(ScoreBoard.Wins wins) {
+    int best = wins.best();
+    if (best < 0) return "";
+    return String.format("Top winner: Immortal-%d (%d wins)%n", wins.id(best), wins.count(best));
+  }
 
-    sb.append("----------------------------------------\n");
-    sb.append(String.format("Total Health: %d (Expected: %d)%n", sum, expectedTotal - (manager.scoreBoard().totalFights() * (damage /2))));
-    sb.append(String.format("Health Lost: %d%n", healthLost));
-    sb.append(String.format("Alive: %d | Dead: %d%n", alive, dead));
-    sb.append(String.format("Fights: %d%n", manager.scoreBoard().totalFights()));
+  private static String arenaLines(ImmortalManager m) {
+    if (m.arenaCount() < 2) return "";
+    var text = new StringBuilder();
+    for (ArenaStatus a : m.arenaStatus()) {
+      text.append(String.format("Arena %d: alive=%d fights=%d migrations in=%d%n",
+              a.id(), a.alive(), a.fights(), a.migrationsIn()));
+    }
+    return text.toString();
+  }
 
-    output.setText(sb.toString());
+  private void onLiveCheck(ActionEvent e) {
+    control.execute(() -> {
+      ImmortalManager m = manager;
+      if (m == null) return;
+      long expectedTotal = m.initialTotalHealth();
+      HealthSnapshot snap = m.consistentSnapshot();
+      log(String.format("Live: health=%d expected=%d alive=%d fights=%d (cut in %d us)%n",
+              snap.totalHealth(), expectedTotal - snap.healthLost(), snap.alive(), snap.fights(),
+              snap.cutNanos() / 1_000), false);
+    });
   }
 
   private void onResume(ActionEvent e) {
-    if (manager == null) return;
-    manager.resume();
-    output.append("Simulation resumed.\n");
+    control.execute(() -> {
+      ImmortalManager m = manager;
+      if (m == null) return;
+      m.resume();
+      log("Simulation resumed.\n", false);
+    });
   }
 
   private void onStop(ActionEvent e) {
-    safeStop();
-    output.append("Simulation stopped.\n");
+    control.execute(() -> {
+      safeStop();
+      log("Simulation stopped.\n", false);
+    });
   }
 
   private void onRemoveDead(ActionEvent e) {
-    if (manager == null) return;
-    manager.pause();
-    manager.removeDead();
-    output.append("Dead immortals removed from population.\n");
-    onPauseAndCheck(e);
+    control.execute(() -> {
+      ImmortalManager m = manager;
+      if (m == null) return;
+      m.pause();
+      m.removeDead();
+      log("Dead immortals removed from population.\n", false);
+      pauseAndCheck();
+    });
+  }
+
+  private void onCheckpoint(ActionEvent e) {
+    control.execute(() -> {
+      ImmortalManager m = manager;
+      if (m == null) return;
+      try {
+        long start = System.nanoTime();
+        Files.createDirectories(CHECKPOINT.toAbsolutePath().getParent());
+        long bytes = m.checkpoint(CHECKPOINT);
+        log(String.format("Checkpoint: %d bytes to %s in %.1f ms%n", bytes, CHECKPOINT,
+                (System.nanoTime() - start) / 1e6), false);
+      } catch (IOException | IllegalStateException ex) {
+        log("Checkpoint failed: " + ex.getMessage() + "\n", false);
+      }
+    });
+  }
+
+  private void onRestore(ActionEvent e) {
+    control.execute(() -> {
+      try {
+        long start = System.nanoTime();
+        var m = ImmortalManager.restore(CHECKPOINT);
+        long restored = System.nanoTime() - start;
+        safeStop();
+        m.start();
+        manager = m;
+        refresh();
+        log(String.format("Restored %d immortals from %s in %.1f ms%n", m.statusSnapshot().size(), CHECKPOINT,
+                restored / 1e6), true);
+      } catch (IOException ex) {
+        log("Restore failed: " + ex.getMessage() + "\n", false);
+      }
+    });
+  }
+
+  /**
+   * En el hilo de control: copia la poblacion en arreglos y la telemetria,
+   * compara con la ultima copia enviada para saber que filas cambiaron y le
+   * pasa solo esas al EDT.
+   */
+  private PopulationTableModel.Rows refresh() {
+    ImmortalManager m = manager;
+    var rows = m == null ? posted : PopulationTableModel.Rows.read(m, posted.size());
+    var change = PopulationTableModel.Change.between(posted, rows);
+    posted = rows;
+    long fights = m == null ? 0 : m.scoreBoard().totalFights();
+    var samples = m == null ? null : m.telemetry(CHART_SAMPLES);
+    String line = String.format("Immortals: %d | Alive: %d | Dead: %d | Total health: %d | Fights: %d",
+            rows.size(), rows.aliveCount, rows.deadCount(), rows.totalHealth, fights);
+    SwingUtilities.invokeLater(() -> {
+      population.apply(change);
+      summary.setText(line);
+      if (samples != null) chart.show(samples);
+    });
+    return rows;
   }
 
+  private void log(String text, boolean replace) {
+    SwingUtilities.invokeLater(() -> {
+      if (replace) output.setText(text);
+      else output.append(text);
+    });
+  }
+
+  /** Solo en el hilo de control. Cierra (no solo detiene) para volcar y cerrar el log de peleas. */
   private void safeStop() {
-    if (manager != null) {
-      manager.stop();
+    ImmortalManager m = manager;
+    if (m != null) {
       manager = null;
+      try {
+        m.close();
+      } catch (UncheckedIOException ex) {
+        log("Fight log close failed: " + ex.getCause().getMessage() + "\n", false);
+      }
+    }
+  }
+
+  /** Desde el EDT al cerrar la ventana: corre {@link #safeStop} en el hilo de control y lo espera un rato. */
+  private void closeOnExit() {
+    try {
+      control.submit(this::safeStop).get(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException | TimeoutException ex) {
+      // Se sale igual; a lo sumo se pierde la ultima tanda del log.
     }
   }
 
   public static void main(String[] args) {
     int count = Integer.getInteger("count", 8);
     String fight = System.getProperty("fight", "ordered");
-    SwingUtilities.invokeLater(() -> new ControlFrame(count, fight));
+    String engine = System.getProperty("engine", "threads");
+    SwingUtilities.invokeLater(() -> new ControlFrame(count, fight, engine));
   }
 }
\ No newline at end of file
@@ -0,0 +1,146 @@
+package edu.eci.arsw.highlandersim;
+
+import edu.eci.arsw.immortals.ImmortalManager;
+import java.util.Arrays;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modelo de la tabla de poblacion. Las filas viven en arreglos por columna
+ * ({@link Rows}) que se copian del manager fuera del EDT sin crear objetos por
+ * fila; el EDT solo cambia la referencia y avisa de las filas que cambiaron,
+ * y la {@code JTable} pinta unicamente las filas visibles, asi que el costo en
+ * el EDT no depende del tamanio.
+ */
+final class PopulationTableModel extends AbstractTableModel {
+  private static final String[] COLUMNS = {"Immortal", "Health", "Wins", "Status"};
+  /** Con mas tramos sucios que estos se avisa un solo rango: la tabla igual repinta solo lo visible. */
+  static final int MAX_EVENTS = 256;
+
+  /** Copia inmutable de la poblacion con sus totales. */
+  static final class Rows {
+    static final Rows EMPTY = new Rows(0, new int[0], new int[0], new long[0], new boolean[0]);
+
+    private final int size;
+    final int[] ids;
+    final int[] health;
+    final long[] wins;
+    final boolean[] alive;
+    final long totalHealth;
+    final int aliveCount;
+
+    /** Toma las primeras {@code size} filas de los arreglos, que pasan a ser de esta copia. */
+    Rows(int size, int[] ids, int[] health, long[] wins, boolean[] alive) {
+      this.size = size;
+      this.ids = ids;
+      this.health = health;
+      this.wins = wins;
+      this.alive = alive;
+      long total = 0;
+      int living = 0;
+      for (int i = 0; i < size; i++) {
+        total += health[i];
+        if (alive[i]) living++;
+      }
+      totalHealth = total;
+      aliveCount = living;
+    }
+
+    /** Copia el estado del manager; {@code hint} es el tamanio esperado (el de la copia anterior). */
+    static Rows read(ImmortalManager m, int hint) {
+      int capacity = hint + 64;
+      while (true) {
+        int[] ids = new int[capacity];
+        int[] health = new int[capacity];
+        long[] wins = new long[capacity];
+        boolean[] alive = new boolean[capacity];
+        int n = m.copyStatus(ids, health, wins, alive);
+        if (n <= capacity) return new Rows(n, ids, health, wins, alive);
+        capacity = n + n / 8;
+      }
+    }
+
+    int size() { return size; }
+    int deadCount() { return size - aliveCount; }
+    String name(int row) { return "Immortal-" + ids[row]; }
+  }
+
+  /** Las filas que cambiaron de {@code from} a {@code to}, en orden; se calcula fuera del EDT. */
+  record Change(Rows from, Rows to, boolean resized, int[] dirty) {
+    static Change between(Rows from, Rows to) {
+      if (from.size() != to.size()) return new Change(from, to, true, new int[0]);
+      int[] dirty = new int[16];
+      int count = 0;
+      for (int i = 0; i < to.size(); i++) {
+        if (from.health[i] != to.health[i] || from.wins[i] != to.wins[i] || from.alive[i] != to.alive[i]
+                || from.ids[i] != to.ids[i]) {
+          if (count == dirty.length) dirty = Arrays.copyOf(dirty, count * 2);
+          dirty[count++] = i;
+        }
+      }
+      return new Change(from, to, false, Arrays.copyOf(dirty, count));
+    }
+  }
+
+  private volatile Rows rows = Rows.EMPTY;
+
+  /** Las filas que muestra la tabla; se puede leer desde cualquier hilo. */
+  Rows rows() {
+    return rows;
+  }
+
+  /** En el EDT: publica {@code change.to()} y avisa de cada tramo contiguo de filas cambiadas. */
+  void apply(Change change) {
+    Rows previous = rows;
+    rows = change.to();
+    if (previous != change.from() || change.resized()) {
+      fireTableDataChanged();
+      return;
+    }
+    int[] dirty = change.dirty();
+    if (dirty.length == 0) return;
+    if (runs(dirty) > MAX_EVENTS) {
+      fireTableRowsUpdated(dirty[0], dirty[dirty.length - 1]);
+      return;
+    }
+    int start = 0;
+    for (int i = 1; i <= dirty.length; i++) {
+      if (i == dirty.length || dirty[i] != dirty[i - 1] + 1) {
+        fireTableRowsUpdated(dirty[start], dirty[i - 1]);
+        start = i;
+      }
+    }
+  }
+
+  private static int runs(int[] dirty) {
+    int runs = 1;
+    for (int i = 1; i < dirty.length; i++) {
+      if (dirty[i] != dirty[i - 1] + 1) runs++;
+    }
+    return runs;
+  }
+
+  @Override public int getRowCount() { return rows.size(); }
+  @Override public int getColumnCount() { return COLUMNS.length; }
+  @Override public String getColumnName(int column) { return COLUMNS[column]; }
+
+  @Override
+  public Class<?> getColumnClass(int column) {
+    return switch (column) {
+      case 1 -> Integer.class;
+      case 2 -> Long.class;
+      default -> String.class;
+    };
+  }
+
+  @Override
+  public Object getValueAt(int row, int column) {
+    Rows r = rows;
+    if (row >= r.size()) return null;
+    return switch (column) {
+      case 0 -> r.name(row);
+      case 1 -> r.health[row];
+      case 2 -> r.wins[row];
+      default -> r.alive[row] ? "ALIVE" : "DEAD";
+    };
+  }
+}
@@ -0,0 +1,84 @@
+package edu.eci.arsw.highlandersim;
+
+import edu.eci.arsw.metrics.TelemetryRing;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.util.Locale;
+import javax.swing.JComponent;
+
+/**
+ * Grafico en vivo de la telemetria: una franja por medida (peleas/s, vivos,
+ * salud total, latencia de pausa), cada una escalada a su propio maximo. Las
+ * muestras llegan ya copiadas desde el hilo de control con {@link #show}.
+ */
+final class TelemetryChart extends JComponent {
+  private static final String[] TITLES = {"Fights/s", "Alive", "Total health", "Pause (ms)"};
+  private static final Color[] COLORS = {
+      new Color(0x1f77b4), new Color(0x2ca02c), new Color(0xd62728), new Color(0x9467bd)};
+
+  private TelemetryRing.Series series = new TelemetryRing.Series(new long[0], new double[0], new int[0],
+          new long[0], new long[0]);
+
+  TelemetryChart() {
+    setPreferredSize(new Dimension(600, 240));
+    setOpaque(true);
+    setBackground(Color.WHITE);
+  }
+
+  /** En el EDT. */
+  void show(TelemetryRing.Series samples) {
+    series = samples;
+    repaint();
+  }
+
+  private static double value(TelemetryRing.Series s, int strip, int i) {
+    return switch (strip) {
+      case 0 -> s.fightsPerSec()[i];
+      case 1 -> s.alive()[i];
+      case 2 -> s.totalHealth()[i];
+      default -> s.pauseNanos()[i] / 1e6;
+    };
+  }
+
+  @Override
+  protected void paintComponent(Graphics graphics) {
+    Graphics2D g = (Graphics2D) graphics.create();
+    try {
+      g.setColor(getBackground());
+      g.fillRect(0, 0, getWidth(), getHeight());
+      g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      TelemetryRing.Series s = series;
+      int n = s.size();
+      int strips = TITLES.length;
+      int h = getHeight() / strips;
+      int w = getWidth() - 8;
+      for (int k = 0; k < strips; k++) {
+        int top = k * h;
+        double max = 0;
+        for (int i = 0; i < n; i++) max = Math.max(max, value(s, k, i));
+        g.setColor(Color.LIGHT_GRAY);
+        g.drawLine(0, top + h - 1, getWidth(), top + h - 1);
+        g.setColor(COLORS[k]);
+        String last = n == 0 ? "-" : String.format(Locale.ROOT, k == 3 ? "%.2f" : "%.0f", value(s, k, n - 1));
+        g.drawString(TITLES[k] + ": " + last + String.format(Locale.ROOT, "  (max %.0f)", max), 4, top + 14);
+        if (n < 2 || max <= 0) continue;
+        int plotTop = top + 18;
+        int plotHeight = h - 22;
+        int prevX = 0;
+        int prevY = 0;
+        for (int i = 0; i < n; i++) {
+          int x = 4 + (int) ((long) i * w / (n - 1));
+          int y = plotTop + plotHeight - (int) (value(s, k, i) / max * plotHeight);
+          if (i > 0) g.drawLine(prevX, prevY, x, y);
+          prevX = x;
+          prevY = y;
+        }
+      }
+    } finally {
+      g.dispose();
+    }
+  }
+}
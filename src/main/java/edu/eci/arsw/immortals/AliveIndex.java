@@ -0,0 +1,68 @@
+package edu.eci.arsw.immortals;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Conjunto de inmortales vivos con muestreo uniforme O(1) y borrado O(1)
+ * (se mueve el ultimo al hueco). Las altas y bajas se serializan con un lock;
+ * el muestreo no toma ninguno y puede devolver un inmortal que acaba de
+ * morir, por eso quien muestrea debe verificar {@link Immortal#isAlive()}.
+ */
+public final class AliveIndex {
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile AtomicReferenceArray<Immortal> slots = new AtomicReferenceArray<>(16);
+  private volatile int size = 0;
+
+  public void add(Immortal im) {
+    lock.lock();
+    try {
+      if (im.aliveSlot >= 0) return;
+      var current = slots;
+      if (size == current.length()) {
+        var grown = new AtomicReferenceArray<Immortal>(current.length() * 2);
+        for (int i = 0; i < size; i++) grown.setPlain(i, current.getPlain(i));
+        slots = current = grown;
+      }
+      current.setRelease(size, im);
+      im.aliveSlot = size;
+      size++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public boolean remove(Immortal im) {
+    lock.lock();
+    try {
+      int i = im.aliveSlot;
+      var current = slots;
+      // Con arenas, el slot puede ser de otro indice si el inmortal se mudo.
+      if (i < 0 || i >= size || current.getPlain(i) != im) return false;
+      int last = size - 1;
+      Immortal moved = current.getPlain(last);
+      current.setRelease(i, moved);
+      moved.aliveSlot = i;
+      current.setRelease(last, null);
+      im.aliveSlot = -1;
+      size = last;
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Un inmortal uniforme del conjunto, o null si esta vacio (o perdio una carrera con un borrado). */
+  public Immortal sample(ThreadLocalRandom rnd) {
+    int n = size;
+    if (n == 0) return null;
+    var current = slots;
+    int i = rnd.nextInt(n);
+    return i < current.length() ? current.getAcquire(i) : null;
+  }
+
+  public int size() {
+    return size;
+  }
+}
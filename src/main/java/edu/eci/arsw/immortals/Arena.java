@@ -0,0 +1,67 @@
+package edu.eci.arsw.immortals;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Particion de la poblacion: cada arena tiene su propio {@link AliveIndex} (de
+ * donde salen los oponentes) y su propia franja del {@link ScoreBoard}, asi que
+ * los inmortales de arenas distintas no comparten lock de indice ni celdas de
+ * contadores. Las peleas siguen sincronizadas por inmortal, por eso una pelea
+ * que cruza arenas durante una mudanza sigue siendo correcta.
+ */
+final class Arena {
+  private static final Arena[] SOLO = new Arena[0];
+
+  final int id;
+  final AliveIndex alive;
+  final ScoreBoard score;
+  /** Inmortales que llegaron a esta arena desde otra. */
+  final LongAdder migrationsIn = new LongAdder();
+  /** Log de peleas compartido por el grupo, o null si no se registran. */
+  final FightLog log;
+  /** Cada cuantas peleas, en promedio, un inmortal se muda; 0 si no hay otras arenas. */
+  private final int migrateEvery;
+  private Arena[] group = SOLO;
+
+  Arena(int id, AliveIndex alive, ScoreBoard score, int migrateEvery, FightLog log) {
+    this.id = id;
+    this.alive = alive;
+    this.score = score;
+    this.migrateEvery = migrateEvery;
+    this.log = log;
+  }
+
+  /** Arena unica para inmortales creados fuera de un manager. */
+  Arena(AliveIndex alive, ScoreBoard score) {
+    this(0, alive, score, 0, null);
+  }
+
+  /**
+   * {@code k} arenas que se conocen entre si. Con una sola se usa {@code root}
+   * tal cual; con mas, cada una cuenta en una franja de {@code root}. Todas
+   * escriben en el mismo {@code log} (puede ser null).
+   */
+  static Arena[] group(int k, ScoreBoard root, int migrateEvery, FightLog log) {
+    if (k < 1) throw new IllegalArgumentException("arenas must be at least 1");
+    Arena[] all = new Arena[k];
+    for (int i = 0; i < k; i++) {
+      all[i] = new Arena(i, new AliveIndex(), k == 1 ? root : root.stripe(), k == 1 ? 0 : migrateEvery, log);
+    }
+    for (Arena a : all) a.group = all;
+    return all;
+  }
+
+  /** Sorteo por pelea: true si el inmortal deberia mudarse de arena. */
+  boolean shouldMigrate(ThreadLocalRandom rnd) {
+    return migrateEvery > 0 && rnd.nextInt(migrateEvery) == 0;
+  }
+
+  /** Otra arena al azar del grupo, o esta si esta sola. */
+  Arena neighbour(ThreadLocalRandom rnd) {
+    Arena[] all = group;
+    if (all.length < 2) return this;
+    int i = rnd.nextInt(all.length - 1);
+    return all[i >= id ? i + 1 : i];
+  }
+}
@@ -0,0 +1,4 @@
+package edu.eci.arsw.immortals;
+
+/** Estado de una arena en un instante: vivos en su indice, peleas de sus inmortales y llegadas desde otras arenas. */
+public record ArenaStatus(int id, int alive, long fights, long migrationsIn) {}
@@ -0,0 +1,554 @@
+package edu.eci.arsw.immortals;
+
+import edu.eci.arsw.concurrency.PauseController;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Motor "arrays": la poblacion vive en arreglos primitivos (id, salud, vivo) y
+ * la recorren unos pocos hilos de plataforma, uno por nucleo, cada uno sobre su
+ * particion de atacantes. Las peleas reservan ambos indices con el mismo bit
+ * que usa el modo "cas" de {@link Immortal}, asi que no hay monitores.
+ *
+ * <p>Motor "rounds" (mismos arreglos): en vez de correr libre, avanza por
+ * rondas sincronas. En cada ronda un {@link ForkJoinPool} le asigna a cada vivo
+ * una clave pseudoaleatoria que depende solo de la semilla, la ronda y el id,
+ * ordena las claves en paralelo y empareja posiciones consecutivas: nadie queda
+ * en dos peleas, asi que los pares se resuelven en paralelo sin reservas ni
+ * locks. Los muertos de la ronda dejan de emparejarse en la siguiente. Con la
+ * misma semilla y la misma poblacion el resultado es identico sin importar
+ * cuantos hilos haya.
+ */
+final class ArraySimulation {
+  private static final VarHandle HEALTH = MethodHandles.arrayElementVarHandle(int[].class);
+  private static final VarHandle STAMP = MethodHandles.arrayElementVarHandle(long[].class);
+  private static final int CLAIMED = Integer.MIN_VALUE;
+  private static final int OPPONENT_TRIES = 8;
+  /** Elementos por hoja en las fases paralelas de una ronda. */
+  private static final int ROUND_CHUNK = 4096;
+  private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+  /** Espera minima entre rondas cuando quedan menos de dos vivos. */
+  private static final long IDLE_NANOS = 1_000_000;
+
+  private final int[] ids;
+  private final int[] health;
+  private final byte[] alive;
+  /** Victorias por indice; cada una la escribe solo el trabajador duenio del atacante. */
+  private final long[] wins;
+  /** Marca de epoca y salud previa por indice (ver {@link HealthEpochs}). */
+  private final long[] stamps;
+  private final int[] prev;
+  /** Nombres por indice, creados al pedirlos por primera vez (una carrera solo crea el mismo texto dos veces). */
+  private final String[] names;
+  private volatile int size;
+
+  private final int damage;
+  private final int workers;
+  private final ScoreBoard scoreBoard;
+  private final PauseController controller;
+  private final HealthEpochs epochs;
+  /** Log de peleas por id, o null. */
+  private final FightLog log;
+  /** Motor "rounds": semilla de los emparejamientos, ronda siguiente y claves de la ronda (por indice). */
+  private final boolean rounds;
+  /** Minimo entre el inicio de dos rondas, como el paso entre peleas del motor "threads"; 0 las encadena. */
+  private final long paceNanos;
+  private final long seed;
+  private long round = 0;
+  private long[] keys;
+  private ForkJoinPool pool;
+  private final AliveIndex detached = new AliveIndex();
+  /** Los trabajadores la toman en lectura por barrido; removeDead la toma en escritura para compactar. */
+  private final StampedLock compaction = new StampedLock();
+  private ExecutorService exec;
+  private volatile boolean running = false;
+
+  ArraySimulation(int n, int initialHealth, int damage, ScoreBoard scoreBoard, PauseController controller,
+                  HealthEpochs epochs, FightLog log, boolean rounds, long seed) {
+    this.ids = new int[n];
+    this.health = new int[n];
+    this.alive = new byte[n];
+    this.wins = new long[n];
+    this.stamps = new long[n];
+    this.prev = new int[n];
+    this.names = new String[n];
+    for (int i = 0; i < n; i++) {
+      ids[i] = i;
+      health[i] = initialHealth;
+      alive[i] = 1;
+    }
+    this.size = n;
+    this.damage = damage;
+    this.workers = Integer.getInteger("workers", Runtime.getRuntime().availableProcessors());
+    this.paceNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("rounds.paceMs", 2));
+    this.scoreBoard = scoreBoard;
+    this.controller = controller;
+    this.epochs = epochs;
+    this.log = log;
+    this.rounds = rounds;
+    this.seed = seed;
+  }
+
+  /** Copia las secciones de un checkpoint mapeado con copias en bloque; los nombres se siguen creando al pedirlos. */
+  ArraySimulation(Checkpoint.Image image, ScoreBoard scoreBoard, PauseController controller, HealthEpochs epochs,
+                  FightLog log, boolean rounds, long seed) {
+    int n = image.header().count();
+    this.ids = new int[n];
+    this.health = new int[n];
+    this.alive = new byte[n];
+    this.wins = new long[n];
+    this.stamps = new long[n];
+    this.prev = new int[n];
+    this.names = new String[n];
+    image.ids().get(0, ids);
+    image.health().get(0, health);
+    image.wins().get(0, wins);
+    image.alive().get(0, alive);
+    this.size = n;
+    this.damage = image.header().damage();
+    this.workers = Integer.getInteger("workers", Runtime.getRuntime().availableProcessors());
+    this.paceNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("rounds.paceMs", 2));
+    this.scoreBoard = scoreBoard;
+    this.controller = controller;
+    this.epochs = epochs;
+    this.log = log;
+    this.rounds = rounds;
+    this.seed = seed;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean rounds() {
+    return rounds;
+  }
+
+  /** Vuelca la poblacion en un checkpoint; requiere la simulacion pausada (nadie tiene reservas). */
+  void export(IntBuffer ids, IntBuffer health, LongBuffer wins, ByteBuffer alive) {
+    long stamp = compaction.readLock();
+    try {
+      int n = ids.capacity();
+      ids.put(0, this.ids, 0, n);
+      health.put(0, this.health, 0, n);
+      wins.put(0, this.wins, 0, n);
+      alive.put(0, this.alive, 0, n);
+    } finally {
+      compaction.unlockRead(stamp);
+    }
+  }
+
+  synchronized void start() {
+    if (running) stop();
+    running = true;
+    if (rounds) {
+      pool = new ForkJoinPool(workers);
+      exec = Executors.newSingleThreadExecutor();
+      exec.submit(this::drive);
+      return;
+    }
+    exec = Executors.newFixedThreadPool(workers);
+    for (int w = 0; w < workers; w++) {
+      int worker = w;
+      exec.submit(() -> work(worker));
+    }
+  }
+
+  synchronized void stop() {
+    running = false;
+    if (exec != null) {
+      exec.shutdown();
+      try {
+        if (!exec.awaitTermination(2, TimeUnit.SECONDS)) {
+          exec.shutdownNow();
+        }
+      } catch (InterruptedException e) {
+        exec.shutdownNow();
+        Thread.currentThread().interrupt();
+      }
+      exec = null;
+    }
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
+    }
+  }
+
+  boolean isRunning() {
+    return running && exec != null && !exec.isShutdown();
+  }
+
+  private void work(int worker) {
+    controller.registerThread();
+    try {
+      while (running) {
+        controller.awaitIfPaused();
+        if (!running) break;
+        boolean fought = false;
+        long stamp = compaction.readLock();
+        try {
+          int n = size;
+          int lo = (int) ((long) n * worker / workers);
+          int hi = (int) ((long) n * (worker + 1) / workers);
+          var rnd = ThreadLocalRandom.current();
+          boolean timed = scoreBoard.timingFights();
+          for (int i = lo; i < hi && running && !controller.paused(); i++) {
+            if (alive[i] == 0) continue;
+            if (timed) {
+              long start = System.nanoTime();
+              fought |= fight(i, rnd, n);
+              scoreBoard.recordFightLatency(System.nanoTime() - start);
+            } else {
+              fought |= fight(i, rnd, n);
+            }
+          }
+        } finally {
+          compaction.unlockRead(stamp);
+        }
+        if (!fought) Thread.sleep(1);
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    } finally {
+      controller.unregisterThread();
+    }
+  }
+
+  /**
+   * Ciclo del hilo conductor del motor "rounds": las pausas y el stop se
+   * atienden entre rondas, y entre una y otra espera lo que falte para
+   * completar {@code -Drounds.paceMs} desde que empezo la anterior.
+   */
+  private void drive() {
+    controller.registerThread();
+    try {
+      while (running) {
+        controller.awaitIfPaused();
+        if (!running) break;
+        long start = System.nanoTime();
+        long wait = round() == 0 ? Math.max(paceNanos, IDLE_NANOS) : paceNanos;
+        wait -= System.nanoTime() - start;
+        if (wait > 0 && running && !controller.paused()) TimeUnit.NANOSECONDS.sleep(wait);
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    } finally {
+      controller.unregisterThread();
+    }
+  }
+
+  /**
+   * Corre {@code count} rondas en el hilo que llama, con la simulacion detenida;
+   * sirve para reproducir una corrida exacta a partir de la semilla.
+   *
+   * @return peleas resueltas
+   */
+  synchronized long runRounds(int count) {
+    if (!rounds) throw new UnsupportedOperationException("only the rounds engine advances by rounds");
+    if (running) throw new IllegalStateException("stop the simulation before stepping rounds");
+    pool = new ForkJoinPool(workers);
+    try {
+      long fights = 0;
+      for (int r = 0; r < count; r++) fights += round();
+      return fights;
+    } finally {
+      pool.shutdown();
+      pool = null;
+    }
+  }
+
+  /**
+   * Una ronda completa, confirmada como una sola epoca de {@link HealthEpochs}:
+   * un corte consistente espera a que termine y nunca ve media ronda.
+   *
+   * @return peleas de la ronda (0 si queda uno o ninguno vivo)
+   */
+  private long round() {
+    long stamp = compaction.readLock();
+    try {
+      int n = size;
+      if (keys == null || keys.length < n) keys = new long[n];
+      long[] keys = this.keys;
+      long r = round++;
+      long salt = mix(seed ^ r * GOLDEN);
+      ForkJoinPool pool = this.pool;
+      int living = (int) pool.invoke(new RoundTask(0, n, 1, (lo, hi, acc) -> {
+        for (int i = lo; i < hi; i++) {
+          // 31 bits de clave arriba y el indice abajo: el orden es un barajado que no depende del paralelismo.
+          if (health[i] > 0) {
+            keys[i] = (mix(salt + ids[i]) >>> 33) << 32 | i;
+            acc[0]++;
+          } else {
+            keys[i] = Long.MAX_VALUE;
+          }
+        }
+      }))[0];
+      if (living < 2) return 0;
+      pool.invoke(ForkJoinTask.adapt(() -> Arrays.parallelSort(keys, 0, n)));
+      int pairs = living / 2;
+      long e = epochs.enter();
+      long[] sums = pool.invoke(new RoundTask(0, pairs, 3, (lo, hi, acc) -> {
+        for (int p = lo; p < hi; p++) {
+          resolve((int) keys[2 * p], (int) keys[2 * p + 1], e, acc);
+        }
+      }));
+      long kills = sums[0], dealt = sums[1], gained = sums[2];
+      scoreBoard.add(new ScoreBoard.Snapshot(pairs, kills, dealt, gained));
+      epochs.exit(e, dealt - gained, pairs);
+      return pairs;
+    } finally {
+      compaction.unlockRead(stamp);
+    }
+  }
+
+  /** Un par de la ronda; cada indice esta en un solo par, asi que basta con escrituras simples. */
+  private void resolve(int attacker, int defender, long e, long[] acc) {
+    int mine = health[attacker];
+    int theirs = health[defender];
+    int actualDamage = Math.min(damage, theirs);
+    int left = theirs - actualDamage;
+    int gained = actualDamage / 2;
+    stage(attacker, e, mine);
+    stage(defender, e, theirs);
+    health[defender] = left;
+    health[attacker] = mine + gained;
+    wins[attacker]++;
+    if (left == 0) {
+      alive[defender] = 0;
+      acc[0]++;
+    }
+    acc[1] += actualDamage;
+    acc[2] += gained;
+    if (log != null) log.fight(ids[attacker], ids[defender], actualDamage, gained, mine + gained, left);
+  }
+
+  /** Mezclador de SplittableRandom: claves bien repartidas a partir de semilla, ronda e id. */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private interface RangeBody {
+    /** Procesa {@code [lo, hi)} sumando en {@code acc}. */
+    void run(int lo, int hi, long[] acc);
+  }
+
+  /** Divide un rango hasta {@value #ROUND_CHUNK} elementos y suma los acumuladores de las hojas. */
+  private static final class RoundTask extends RecursiveTask<long[]> {
+    private final int lo;
+    private final int hi;
+    private final int width;
+    private final RangeBody body;
+
+    RoundTask(int lo, int hi, int width, RangeBody body) {
+      this.lo = lo;
+      this.hi = hi;
+      this.width = width;
+      this.body = body;
+    }
+
+    @Override
+    protected long[] compute() {
+      if (hi - lo <= ROUND_CHUNK) {
+        long[] acc = new long[width];
+        body.run(lo, hi, acc);
+        return acc;
+      }
+      int mid = (lo + hi) >>> 1;
+      var left = new RoundTask(lo, mid, width, body);
+      left.fork();
+      long[] acc = new RoundTask(mid, hi, width, body).compute();
+      long[] other = left.join();
+      for (int i = 0; i < width; i++) acc[i] += other[i];
+      return acc;
+    }
+  }
+
+  private boolean fight(int attacker, ThreadLocalRandom rnd, int n) {
+    if (n <= 1) return false;
+    for (int t = 0; t < OPPONENT_TRIES; t++) {
+      int defender = rnd.nextInt(n);
+      if (defender != attacker && (int) HEALTH.getOpaque(health, defender) > 0) {
+        return fight(attacker, defender);
+      }
+    }
+    return false;
+  }
+
+  private boolean fight(int attacker, int defender) {
+    int mine = (int) HEALTH.getVolatile(health, attacker);
+    if (mine <= 0 || !HEALTH.compareAndSet(health, attacker, mine, mine | CLAIMED)) return false;
+    int theirs;
+    do {
+      theirs = (int) HEALTH.getVolatile(health, defender);
+      if (theirs <= 0) {
+        HEALTH.setVolatile(health, attacker, mine);
+        return false;
+      }
+    } while (!HEALTH.compareAndSet(health, defender, theirs, theirs | CLAIMED));
+
+    int actualDamage = Math.min(damage, theirs);
+    int left = theirs - actualDamage;
+    long e = epochs.enter();
+    stage(attacker, e, mine);
+    stage(defender, e, theirs);
+    scoreBoard.recordFight(actualDamage, actualDamage / 2, left == 0);
+    wins[attacker]++;
+    if (left == 0) alive[defender] = 0;
+    if (log != null) log.fight(ids[attacker], ids[defender], actualDamage, actualDamage / 2, mine + actualDamage / 2, left);
+    HEALTH.setVolatile(health, defender, left);
+    HEALTH.setVolatile(health, attacker, mine + actualDamage / 2);
+    epochs.exit(e, actualDamage - actualDamage / 2);
+    return true;
+  }
+
+  private void stage(int i, long e, int current) {
+    if ((long) STAMP.getVolatile(stamps, i) < e) {
+      HEALTH.setVolatile(prev, i, current);
+      STAMP.setVolatile(stamps, i, e);
+    }
+  }
+
+  HealthSnapshot consistentSnapshot() {
+    long stamp = compaction.readLock();
+    try {
+      return epochs.cut((cut, acc) -> {
+        int n = size;
+        for (int i = 0; i < n; i++) {
+          int current = healthAt(i);
+          acc.add(HealthEpochs.valueAt(cut, current, (long) STAMP.getVolatile(stamps, i),
+                  (int) HEALTH.getVolatile(prev, i)));
+        }
+      });
+    } finally {
+      compaction.unlockRead(stamp);
+    }
+  }
+
+  private int healthAt(int i) {
+    return (int) HEALTH.getVolatile(health, i) & ~CLAIMED;
+  }
+
+  int aliveCount() {
+    int n = size;
+    int count = 0;
+    for (int i = 0; i < n; i++) {
+      if (healthAt(i) > 0) count++;
+    }
+    return count;
+  }
+
+  long totalHealth() {
+    int n = size;
+    long sum = 0;
+    for (int i = 0; i < n; i++) {
+      sum += healthAt(i);
+    }
+    return sum;
+  }
+
+  void removeDead() {
+    long stamp = compaction.writeLock();
+    try {
+      int n = size;
+      int kept = 0;
+      for (int i = 0; i < n; i++) {
+        if (health[i] > 0) {
+          ids[kept] = ids[i];
+          health[kept] = health[i];
+          alive[kept] = 1;
+          wins[kept] = wins[i];
+          stamps[kept] = stamps[i];
+          prev[kept] = prev[i];
+          names[kept] = names[i];
+          kept++;
+        }
+      }
+      Arrays.fill(names, kept, n, null);
+      size = kept;
+    } finally {
+      compaction.unlockWrite(stamp);
+    }
+  }
+
+  /** Toma el lock de compactacion en lectura: solo espera a un removeDead en curso, nunca a las peleas. */
+  List<ImmortalStatus> statusSnapshot() {
+    long stamp = compaction.readLock();
+    try {
+      int n = size;
+      List<ImmortalStatus> rows = new ArrayList<>(n);
+      for (int i = 0; i < n; i++) {
+        int h = healthAt(i);
+        rows.add(new ImmortalStatus(name(i), h, wins[i], h > 0));
+      }
+      return rows;
+    } finally {
+      compaction.unlockRead(stamp);
+    }
+  }
+
+  /** Como {@link #statusSnapshot()} pero en arreglos del llamador; ver {@link ImmortalManager#copyStatus}. */
+  int copyStatus(int[] ids, int[] health, long[] wins, boolean[] alive) {
+    long stamp = compaction.readLock();
+    try {
+      int n = size;
+      for (int i = 0, k = Math.min(n, ids.length); i < k; i++) {
+        int h = healthAt(i);
+        ids[i] = this.ids[i];
+        health[i] = h;
+        wins[i] = this.wins[i];
+        alive[i] = h > 0;
+      }
+      return n;
+    } finally {
+      compaction.unlockRead(stamp);
+    }
+  }
+
+  int copyWins(int[] ids, long[] wins) {
+    long stamp = compaction.readLock();
+    try {
+      int n = size;
+      int k = Math.min(n, ids.length);
+      System.arraycopy(this.ids, 0, ids, 0, k);
+      System.arraycopy(this.wins, 0, wins, 0, k);
+      return n;
+    } finally {
+      compaction.unlockRead(stamp);
+    }
+  }
+
+  private String name(int i) {
+    String name = names[i];
+    if (name == null) names[i] = name = "Immortal-" + ids[i];
+    return name;
+  }
+
+  /** Vista de objetos para la UI y las pruebas; no participan en la simulacion. */
+  List<Immortal> populationSnapshot() {
+    int n = size;
+    List<Immortal> views = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      var view = new Immortal(name(i), healthAt(i), damage, detached, scoreBoard, controller);
+      view.wins = wins[i];
+      views.add(view);
+    }
+    return Collections.unmodifiableList(views);
+  }
+}
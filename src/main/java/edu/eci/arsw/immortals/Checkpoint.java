@@ -0,0 +1,125 @@
+package edu.eci.arsw.immortals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Formato binario de checkpoint, little-endian, escrito y leido a traves de un
+ * {@link MappedByteBuffer}:
+ * <pre>
+ *   0  int  magic "IMMC"       4  int  version
+ *   8  int  motor              12 int  modo de pelea (indice en FIGHT_MODES)
+ *  16  int  arenas             20 int  n (inmortales guardados)
+ *  24  int  salud inicial      28 int  dano
+ *  32  int  ids asignados      36 int  reservado
+ *  40  long peleas             48 long muertes
+ *  56  long dano causado       64 long salud ganada
+ *  72  int[n] ids | int[n] salud | long[n] victorias | byte[n] vivo
+ * </pre>
+ * Al leer, las secciones quedan como vistas sobre el archivo mapeado: el
+ * sistema operativo trae las paginas cuando se copian, sin parsear nada.
+ */
+final class Checkpoint {
+  private Checkpoint() {}
+
+  private static final int MAGIC = 0x434D4D49;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 72;
+  private static final int BYTES_PER_IMMORTAL = Integer.BYTES * 2 + Long.BYTES + 1;
+  private static final String[] ENGINES = {"threads", "actors", "arrays", "rounds"};
+  /**
+   * Orden fijo del formato, independiente de {@link FightStrategy#MODES}. "lock"
+   * era un alias de "ordered" y se lee como tal; ya no se escribe.
+   */
+  private static final String[] FIGHT_MODES = {"ordered", "naive", "lock", "trylock", "stamped", "cas", "monitor"};
+
+  record Header(String engine, String fightMode, int arenas, int count, int initialHealth, int damage,
+                int spawned, ScoreBoard.Snapshot score) {}
+
+  /** Secciones del archivo, en el orden de los indices de la poblacion. */
+  record Image(Header header, IntBuffer ids, IntBuffer health, LongBuffer wins, ByteBuffer alive) {}
+
+  /** Lo que cada motor vuelca en las secciones; se llama con la simulacion pausada. */
+  interface Population {
+    void export(IntBuffer ids, IntBuffer health, LongBuffer wins, ByteBuffer alive);
+  }
+
+  static long bytesFor(int count) {
+    return HEADER_BYTES + (long) count * BYTES_PER_IMMORTAL;
+  }
+
+  /** Escribe a un temporal y lo renombra, asi un checkpoint a medias nunca reemplaza al anterior. */
+  static long write(Path file, Header h, Population population) throws IOException {
+    long bytes = bytesFor(h.count());
+    if (bytes > Integer.MAX_VALUE) throw new IllegalArgumentException("population too large for one mapping: " + h.count());
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+      map.order(ByteOrder.LITTLE_ENDIAN);
+      map.putInt(0, MAGIC).putInt(4, VERSION)
+              .putInt(8, indexOf(ENGINES, h.engine())).putInt(12, indexOf(FIGHT_MODES, h.fightMode()))
+              .putInt(16, h.arenas()).putInt(20, h.count())
+              .putInt(24, h.initialHealth()).putInt(28, h.damage())
+              .putInt(32, h.spawned()).putInt(36, 0)
+              .putLong(40, h.score().fights()).putLong(48, h.score().kills())
+              .putLong(56, h.score().damageDealt()).putLong(64, h.score().healthGained());
+      Image image = sections(map, h);
+      population.export(image.ids(), image.health(), image.wins(), image.alive());
+      map.force();
+    }
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return bytes;
+  }
+
+  static Image read(Path file) throws IOException {
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = ch.size();
+      if (size < HEADER_BYTES || size > Integer.MAX_VALUE) throw new IOException("not an immortals checkpoint: " + file);
+      ByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+      if (map.getInt(0) != MAGIC) throw new IOException("not an immortals checkpoint: " + file);
+      if (map.getInt(4) != VERSION) throw new IOException("unsupported checkpoint version " + map.getInt(4));
+      int engine = map.getInt(8);
+      int mode = map.getInt(12);
+      int count = map.getInt(20);
+      if (engine < 0 || engine >= ENGINES.length || mode < 0 || mode >= FIGHT_MODES.length
+              || count < 0 || size != bytesFor(count)) {
+        throw new IOException("corrupt or truncated checkpoint: " + file);
+      }
+      var score = new ScoreBoard.Snapshot(map.getLong(40), map.getLong(48), map.getLong(56), map.getLong(64));
+      var header = new Header(ENGINES[engine], mode == 2 ? "ordered" : FIGHT_MODES[mode], map.getInt(16), count,
+              map.getInt(24), map.getInt(28), map.getInt(32), score);
+      return sections(map, header);
+    }
+  }
+
+  private static Image sections(ByteBuffer map, Header h) {
+    int n = h.count();
+    int ids = HEADER_BYTES;
+    int health = ids + n * Integer.BYTES;
+    int wins = health + n * Integer.BYTES;
+    int alive = wins + n * Long.BYTES;
+    return new Image(h,
+            map.slice(ids, n * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer(),
+            map.slice(health, n * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer(),
+            map.slice(wins, n * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer(),
+            map.slice(alive, n));
+  }
+
+  private static int indexOf(String[] names, String name) {
+    int i = Arrays.asList(names).indexOf(name.toLowerCase(Locale.ROOT));
+    if (i < 0) throw new IllegalArgumentException("Unknown name: " + name);
+    return i;
+  }
+}
@@ -0,0 +1,359 @@
+package edu.eci.arsw.immortals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro binario de solo agregado con cada pelea. Quien pelea copia un
+ * registro de ancho fijo en uno de unos pocos buffers (franjas elegidas por el
+ * id del hilo, cada una con un spin lock que solo cubre la copia); los buffers
+ * llenos pasan por una cola a un unico hilo escritor que los vuelca con un
+ * {@link FileChannel} y rota el segmento al llegar a {@code segmentBytes}.
+ *
+ * <p>Cada segmento {@code fights-NNNNN.log} empieza con un encabezado de
+ * {@value #HEADER_BYTES} bytes (magic, version, tamanio de registro, segmento,
+ * n, salud inicial, dano) y sigue con registros little-endian de
+ * {@value #RECORD_BYTES} bytes:
+ * <pre>
+ *   0 long nanos desde que se abrio el log   8 int tipo
+ *  12 int atacante   16 int defensor   20 int dano   24 int ganancia
+ *  28 int salud del atacante   32 int salud del defensor   36 int reservado
+ * </pre>
+ * En una marca ({@link #MARK}) el long en 12 guarda las peleas contadas hasta ahi.
+ */
+public final class FightLog implements AutoCloseable {
+  static final int MAGIC = 0x4C464D49;
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 32;
+  static final int RECORD_BYTES = 40;
+  /** Pelea completa: dano al defensor, ganancia y victoria del atacante. */
+  static final int FIGHT = 0;
+  /** Modo actor, lado defensor: solo el dano. */
+  static final int HIT = 1;
+  /** Modo actor, lado atacante: la ganancia que efectivamente sumo y la victoria. */
+  static final int GAIN = 2;
+  /** Punto de control escrito con la simulacion pausada (ver {@link #mark}). */
+  static final int MARK = 3;
+  private static final int RECORDS_PER_BUFFER = 256;
+  private static final long FLUSH_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final DateTimeFormatter RUN_NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+  private static final class Stripe {
+    final AtomicBoolean busy = new AtomicBoolean();
+    ByteBuffer buffer;
+  }
+
+  private final Path dir;
+  private final long segmentBytes;
+  private final int count;
+  private final int initialHealth;
+  private final int damage;
+  private final long origin = System.nanoTime();
+  private final Stripe[] stripes;
+  private final ArrayBlockingQueue<ByteBuffer> free;
+  private final ArrayBlockingQueue<ByteBuffer> full;
+  private final AtomicLong enqueued = new AtomicLong();
+  private final AtomicLong written = new AtomicLong();
+  /** Hasta que buffer (contado como {@code enqueued}) pidieron un {@code force}, y hasta cual ya se hizo. */
+  private final AtomicLong forceRequested = new AtomicLong();
+  private final AtomicLong forced = new AtomicLong();
+  private final AtomicLong records = new AtomicLong();
+  private final Thread writer;
+  private volatile boolean closed = false;
+  private volatile IOException failure;
+  // Solo del hilo escritor.
+  private FileChannel channel;
+  private int segment = -1;
+  private long segmentSize;
+
+  private FightLog(Path dir, long segmentBytes, int count, int initialHealth, int damage) {
+    this.dir = dir;
+    this.segmentBytes = Math.max(HEADER_BYTES + (long) RECORD_BYTES * RECORDS_PER_BUFFER, segmentBytes);
+    this.count = count;
+    this.initialHealth = initialHealth;
+    this.damage = damage;
+    int n = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 4);
+    this.stripes = new Stripe[n];
+    int buffers = n * 2 + 2;
+    this.free = new ArrayBlockingQueue<>(buffers);
+    this.full = new ArrayBlockingQueue<>(buffers);
+    for (int i = 0; i < buffers - n; i++) free.add(newBuffer());
+    for (int i = 0; i < n; i++) {
+      stripes[i] = new Stripe();
+      stripes[i].buffer = newBuffer();
+    }
+    this.writer = new Thread(this::drain, "fight-log-writer");
+    writer.setDaemon(true);
+  }
+
+  /**
+   * Abre un log nuevo en {@code dir} para una poblacion de {@code count}
+   * inmortales que empiezan con {@code initialHealth}. Nunca pisa otro log: si
+   * {@code dir} ya tiene segmentos, falla.
+   */
+  public static FightLog open(Path dir, long segmentBytes, int count, int initialHealth, int damage) throws IOException {
+    Files.createDirectories(dir);
+    try (var old = Files.newDirectoryStream(dir, "fights-*.log")) {
+      if (old.iterator().hasNext()) throw new FileAlreadyExistsException(dir.toString(), null, "already holds a fight log");
+    }
+    var log = new FightLog(dir, segmentBytes, count, initialHealth, damage);
+    log.writer.start();
+    return log;
+  }
+
+  /** Crea {@code base/run-<fecha>-<hora>} (con sufijo si ya existe) para el log de una corrida. */
+  static Path newRunDirectory(Path base) throws IOException {
+    Files.createDirectories(base);
+    String name = "run-" + LocalDateTime.now().format(RUN_NAME);
+    for (int i = 0; ; i++) {
+      Path run = base.resolve(i == 0 ? name : name + "-" + i);
+      try {
+        return Files.createDirectory(run);
+      } catch (FileAlreadyExistsException taken) {
+        // Otra corrida en el mismo milisegundo.
+      }
+    }
+  }
+
+  private static ByteBuffer newBuffer() {
+    return ByteBuffer.allocateDirect(RECORD_BYTES * RECORDS_PER_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /** Pelea completa (motores "threads" y "arrays"); se llama con ambos participantes reservados. */
+  void fight(int attacker, int defender, int hit, int gained, int attackerHealth, int defenderHealth) {
+    append(FIGHT, attacker, defender, hit, gained, attackerHealth, defenderHealth);
+  }
+
+  void append(int kind, int attacker, int defender, int hit, int gained, int attackerHealth, int defenderHealth) {
+    long now = System.nanoTime() - origin;
+    Stripe s = lock();
+    try {
+      ByteBuffer b = s.buffer;
+      b.putLong(now).putInt(kind).putInt(attacker).putInt(defender).putInt(hit).putInt(gained)
+              .putInt(attackerHealth).putInt(defenderHealth).putInt(0);
+      if (!b.hasRemaining()) s.buffer = handOff(b);
+    } finally {
+      s.busy.set(false);
+    }
+    records.incrementAndGet();
+  }
+
+  /** La franja del hilo o, si esta ocupada, la siguiente libre; tras una vuelta completa cede el nucleo. */
+  private Stripe lock() {
+    int mask = stripes.length - 1;
+    int start = (int) Thread.currentThread().threadId();
+    for (int i = 0; ; i++) {
+      Stripe s = stripes[(start + i) & mask];
+      if (!s.busy.get() && s.busy.compareAndSet(false, true)) return s;
+      if ((i & mask) == mask) Thread.yield();
+    }
+  }
+
+  /** Encola un buffer con datos y devuelve uno vacio; espera si el escritor va atrasado. */
+  private ByteBuffer handOff(ByteBuffer b) {
+    b.flip();
+    full.add(b);
+    enqueued.incrementAndGet();
+    // La franja no puede quedar sin buffer: una interrupcion se conserva para despues, no corta la espera.
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return free.take();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Escribe una marca con las peleas contadas hasta ahora, despues de todo lo
+   * que ya esta en los buffers, y espera a que llegue al disco (el {@code force}
+   * lo hace el escritor, el unico que toca el canal). Solo tiene
+   * sentido con la simulacion pausada: asi la marca separa exactamente lo
+   * anterior y lo posterior a un checkpoint.
+   */
+  public void mark(long fights) throws IOException {
+    long target = withAllStripes(() -> {
+      Stripe s = stripes[0];
+      ByteBuffer b = s.buffer;
+      // Antes de encolar: el escritor ve el pedido cuando escribe este buffer.
+      forceRequested.accumulateAndGet(enqueued.get() + 1, Math::max);
+      b.putLong(System.nanoTime() - origin).putInt(MARK).putLong(fights).putInt(0).putInt(0)
+              .putInt(0).putInt(0).putInt(0);
+      s.buffer = handOff(b);
+    });
+    awaitWritten(target, true);
+  }
+
+  /** Vuelca los buffers parciales y espera a que el escritor los escriba. */
+  public void flush() throws IOException {
+    awaitWritten(withAllStripes(() -> {}), false);
+  }
+
+  /** Toma todas las franjas, encola sus buffers parciales, corre {@code last} y devuelve cuantos buffers hay que esperar. */
+  private long withAllStripes(Runnable last) {
+    for (Stripe s : stripes) {
+      while (!s.busy.compareAndSet(false, true)) Thread.yield();
+    }
+    try {
+      for (Stripe s : stripes) {
+        if (s.buffer.position() > 0) s.buffer = handOff(s.buffer);
+      }
+      last.run();
+      return enqueued.get();
+    } finally {
+      for (Stripe s : stripes) s.busy.set(false);
+    }
+  }
+
+  private void awaitWritten(long target, boolean force) throws IOException {
+    AtomicLong done = force ? forced : written;
+    while (done.get() < target && failure == null && writer.isAlive()) LockSupport.parkNanos(200_000);
+    if (failure != null) throw failure;
+    if (done.get() < target) throw new IOException("fight log writer stopped before buffer " + target + " was written");
+  }
+
+  private void drain() {
+    long lastFlush = System.nanoTime();
+    while (true) {
+      ByteBuffer b;
+      try {
+        b = full.poll(FLUSH_NANOS, TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        b = full.poll();
+      }
+      if (b == null) {
+        if (closed) break;
+        // Sin buffers llenos: cada tanto se vuelcan los parciales para que el disco no quede muy atras.
+        if (System.nanoTime() - lastFlush >= FLUSH_NANOS) {
+          flushIdleStripes();
+          lastFlush = System.nanoTime();
+        }
+        continue;
+      }
+      write(b);
+      b.clear();
+      free.add(b);
+      forceIfRequested(written.incrementAndGet());
+    }
+    closeChannel();
+  }
+
+  /**
+   * Desde el escritor: encola los parciales de las franjas libres. Nunca espera
+   * (ni franjas ni buffers vacios), porque quien espera a esos es justamente
+   * el escritor; si falta algo, se vuelca en la siguiente vuelta.
+   */
+  private void flushIdleStripes() {
+    for (Stripe s : stripes) {
+      if (!s.busy.compareAndSet(false, true)) continue;
+      try {
+        if (s.buffer.position() == 0) continue;
+        ByteBuffer empty = free.poll();
+        if (empty == null) continue;
+        ByteBuffer b = s.buffer;
+        s.buffer = empty;
+        b.flip();
+        full.add(b);
+        enqueued.incrementAndGet();
+      } finally {
+        s.busy.set(false);
+      }
+    }
+  }
+
+  /** Desde el escritor: si alguien espera un {@code force} hasta el buffer {@code n}, lo hace. */
+  private void forceIfRequested(long n) {
+    long requested = forceRequested.get();
+    if (n < requested || forced.get() >= requested || failure != null) return;
+    try {
+      channel.force(false);
+      forced.set(n);
+    } catch (IOException e) {
+      failure = e;
+    }
+  }
+
+  private void write(ByteBuffer b) {
+    if (failure != null) return;
+    try {
+      if (channel == null || (segmentSize + b.remaining() > segmentBytes && segmentSize > HEADER_BYTES)) {
+        rotate();
+      }
+      segmentSize += b.remaining();
+      while (b.hasRemaining()) channel.write(b);
+    } catch (IOException e) {
+      failure = e;
+    }
+  }
+
+  private void rotate() throws IOException {
+    closeChannel();
+    segment++;
+    channel = FileChannel.open(dir.resolve(segmentName(segment)),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(segment)
+            .putInt(count).putInt(initialHealth).putInt(damage).putInt(0).flip();
+    while (header.hasRemaining()) channel.write(header);
+    segmentSize = HEADER_BYTES;
+  }
+
+  private void closeChannel() {
+    if (channel == null) return;
+    try {
+      channel.force(false);
+      channel.close();
+    } catch (IOException e) {
+      if (failure == null) failure = e;
+    }
+  }
+
+  static String segmentName(int segment) {
+    return String.format("fights-%05d.log", segment);
+  }
+
+  /** Registros agregados (incluidos los que aun estan en buffers). */
+  public long records() {
+    return records.get();
+  }
+
+  /** Segmentos abiertos hasta ahora. */
+  public int segments() {
+    return segment + 1;
+  }
+
+  public Path directory() {
+    return dir;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) return;
+    flush();
+    closed = true;
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (failure != null) throw failure;
+  }
+}
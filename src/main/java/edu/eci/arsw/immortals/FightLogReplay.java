@@ -0,0 +1,249 @@
+package edu.eci.arsw.immortals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reconstruye un {@link ImmortalManager} a partir de un {@link FightLog} y lo
+ * compara con un checkpoint. Todos empiezan con la salud inicial del
+ * encabezado y cada registro suma su delta, asi que el orden entre franjas no
+ * importa; lo unico que tiene que estar en su lugar es la marca, y esa se
+ * escribe con la simulacion pausada.
+ *
+ * <p>El log no registra altas ni bajas de la poblacion ({@code spawn},
+ * {@code removeDead}): quienes la forman, el motor y el modo salen del
+ * checkpoint; la salud, las victorias y los contadores, del log. Si se pasa el
+ * directorio base de {@code -Dfightlog}, se usa la corrida mas nueva que tenga
+ * la marca del checkpoint.
+ */
+public final class FightLogReplay {
+  private FightLogReplay() {}
+
+  /**
+   * @param fights      peleas contadas por el log hasta la marca (o hasta el final si no se encontro)
+   * @param compared    filas del checkpoint comparadas
+   * @param mismatches  filas cuyo id, salud o victorias no coinciden
+   * @param firstMismatch descripcion de la primera diferencia, o null
+   */
+  public record Result(Path run, long records, int segments, boolean markFound, long fights, long checkpointFights,
+                       int compared, int mismatches, String firstMismatch) {
+    public boolean matches() {
+      return markFound && fights == checkpointFights && mismatches == 0;
+    }
+
+    public String describe() {
+      return String.format(Locale.ROOT, "%s: %d records in %d segments, mark %s, fights %d (checkpoint %d), "
+                      + "%d immortals compared, %d mismatches%s",
+              run, records, segments, markFound ? "found" : "NOT found", fights, checkpointFights, compared, mismatches,
+              firstMismatch == null ? "" : " (first: " + firstMismatch + ")");
+    }
+  }
+
+  /** Estado reconstruido, indexado por id. */
+  private static final class State {
+    final int initialHealth;
+    int[] health = new int[0];
+    long[] wins = new long[0];
+    long records;
+    long fights;
+    long kills;
+    long damage;
+    long gained;
+
+    State(int count, int initialHealth) {
+      this.initialHealth = initialHealth;
+      ensure(count - 1);
+    }
+
+    void ensure(int id) {
+      if (id < health.length) return;
+      int old = health.length;
+      int size = Math.max(id + 1, old * 2);
+      health = Arrays.copyOf(health, size);
+      wins = Arrays.copyOf(wins, size);
+      Arrays.fill(health, old, size, initialHealth);
+    }
+
+    int health(int id) { return id < health.length ? health[id] : initialHealth; }
+    long wins(int id) { return id < wins.length ? wins[id] : 0; }
+  }
+
+  /** Lo que salio de aplicar una corrida del log. */
+  private record Replay(Path run, State state, boolean found, int segments) {}
+
+  /**
+   * Manager detenido con el estado que deja el log al llegar a la marca del
+   * checkpoint (o al final del log, si la marca no esta).
+   */
+  public static ImmortalManager rebuild(Path logDir, Path checkpoint) throws IOException {
+    Checkpoint.Image image = Checkpoint.read(checkpoint);
+    return ImmortalManager.fromImage(imageOf(replay(logDir, image.header().score().fights()).state(), image));
+  }
+
+  /** Reconstruye el manager desde el log de {@code logDir} y compara cada fila con el checkpoint. */
+  public static Result check(Path logDir, Path checkpoint) throws IOException {
+    Checkpoint.Image image = Checkpoint.read(checkpoint);
+    long target = image.header().score().fights();
+    Replay replay = replay(logDir, target);
+    State state = replay.state();
+
+    int n = image.header().count();
+    int mismatches = 0;
+    String first = null;
+    long fights;
+    try (ImmortalManager rebuilt = ImmortalManager.fromImage(imageOf(state, image))) {
+      fights = rebuilt.scoreBoard().totalFights();
+      List<ImmortalStatus> rows = rebuilt.statusSnapshot();
+      for (int i = 0; i < n; i++) {
+        int id = image.ids().get(i);
+        int health = image.health().get(i);
+        long wins = image.wins().get(i);
+        ImmortalStatus row = i < rows.size() ? rows.get(i) : null;
+        if (row == null || row.health() != health || row.wins() != wins) {
+          if (first == null) {
+            first = row == null ? "Immortal-" + id + " missing from the rebuilt manager"
+                    : String.format(Locale.ROOT, "Immortal-%d health %d vs %d, wins %d vs %d",
+                            id, row.health(), health, row.wins(), wins);
+          }
+          mismatches++;
+        }
+      }
+    }
+    return new Result(replay.run(), state.records, replay.segments(), replay.found(), fights, target, n,
+            mismatches, first);
+  }
+
+  /** La corrida mas nueva de {@code logDir} que llega a la marca {@code target}; si ninguna, la mas nueva. */
+  private static Replay replay(Path logDir, long target) throws IOException {
+    Replay newest = null;
+    for (Path run : runs(logDir)) {
+      Replay r = replayRun(run, target);
+      if (r.found()) return r;
+      if (newest == null) newest = r;
+    }
+    return newest;
+  }
+
+  private static Replay replayRun(Path run, long target) throws IOException {
+    List<Path> segments = segments(run);
+    State state = null;
+    boolean found = false;
+    for (int s = 0; s < segments.size() && !found; s++) {
+      ByteBuffer map = map(segments.get(s), s);
+      if (state == null) state = new State(map.getInt(16), map.getInt(20));
+      found = apply(map, state, target);
+    }
+    return new Replay(run, state, found, segments.size());
+  }
+
+  /** {@code logDir} si tiene segmentos; si no, sus {@code run-*} de la mas nueva a la mas vieja. */
+  private static List<Path> runs(Path logDir) throws IOException {
+    if (!segments(logDir).isEmpty()) return List.of(logDir);
+    List<Path> runs = new ArrayList<>();
+    try (var dirs = Files.newDirectoryStream(logDir, "run-*")) {
+      for (Path p : dirs) if (!segments(p).isEmpty()) runs.add(p);
+    }
+    if (runs.isEmpty()) throw new IOException("no fight log segments in " + logDir);
+    runs.sort(Comparator.comparing((Path p) -> p.getFileName().toString()).reversed());
+    return runs;
+  }
+
+  /** La poblacion del checkpoint con la salud, las victorias y los contadores del log. */
+  private static Checkpoint.Image imageOf(State state, Checkpoint.Image image) {
+    Checkpoint.Header h = image.header();
+    int n = h.count();
+    IntBuffer ids = IntBuffer.allocate(n);
+    IntBuffer health = IntBuffer.allocate(n);
+    LongBuffer wins = LongBuffer.allocate(n);
+    ByteBuffer alive = ByteBuffer.allocate(n);
+    for (int i = 0; i < n; i++) {
+      int id = image.ids().get(i);
+      ids.put(i, id);
+      health.put(i, state.health(id));
+      wins.put(i, state.wins(id));
+      alive.put(i, (byte) (state.health(id) > 0 ? 1 : 0));
+    }
+    var score = new ScoreBoard.Snapshot(state.fights, state.kills, state.damage, state.gained);
+    var header = new Checkpoint.Header(h.engine(), h.fightMode(), h.arenas(), n, state.initialHealth, h.damage(),
+            h.spawned(), score);
+    return new Checkpoint.Image(header, ids, health, wins, alive);
+  }
+
+  /** Aplica los registros del segmento; devuelve true al llegar a la marca con {@code target} peleas. */
+  private static boolean apply(ByteBuffer map, State state, long target) {
+    int end = map.limit() - (map.limit() - FightLog.HEADER_BYTES) % FightLog.RECORD_BYTES;
+    for (int at = FightLog.HEADER_BYTES; at < end; at += FightLog.RECORD_BYTES) {
+      int kind = map.getInt(at + 8);
+      if (kind == FightLog.MARK) {
+        if (map.getLong(at + 12) == target) return true;
+        continue;
+      }
+      int attacker = map.getInt(at + 12);
+      int defender = map.getInt(at + 16);
+      int hit = map.getInt(at + 20);
+      int gained = map.getInt(at + 24);
+      state.records++;
+      if (kind != FightLog.GAIN) {
+        state.ensure(defender);
+        state.health[defender] -= hit;
+        state.fights++;
+        state.damage += hit;
+        if (map.getInt(at + 32) == 0) state.kills++;
+      }
+      if (kind != FightLog.HIT) {
+        state.ensure(attacker);
+        state.health[attacker] += gained;
+        state.wins[attacker]++;
+        state.gained += gained;
+      }
+    }
+    return false;
+  }
+
+  private static List<Path> segments(Path dir) throws IOException {
+    List<Path> out = new ArrayList<>();
+    try (var files = Files.newDirectoryStream(dir, "fights-*.log")) {
+      for (Path p : files) out.add(p);
+    }
+    out.sort(null);
+    return out;
+  }
+
+  private static ByteBuffer map(Path file, int expectedSegment) throws IOException {
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = ch.size();
+      if (size < FightLog.HEADER_BYTES || size > Integer.MAX_VALUE) throw new IOException("not a fight log: " + file);
+      ByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+      if (map.getInt(0) != FightLog.MAGIC) throw new IOException("not a fight log: " + file);
+      if (map.getInt(4) != FightLog.VERSION || map.getInt(8) != FightLog.RECORD_BYTES) {
+        throw new IOException("unsupported fight log version " + map.getInt(4) + " in " + file);
+      }
+      if (map.getInt(12) != expectedSegment) throw new IOException("missing segment before " + file);
+      return map;
+    }
+  }
+
+  /** {@code FightLogReplay <dir del log o de -Dfightlog> <checkpoint>}; sale con 1 si no coinciden. */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.out.println("Use: FightLogReplay <fight log dir> <checkpoint>");
+      return;
+    }
+    Result r = check(Path.of(args[0]), Path.of(args[1]));
+    System.out.println(r.describe());
+    System.out.println(r.matches() ? "Replay matches the checkpoint" : "Replay does NOT match the checkpoint");
+    if (!r.matches()) System.exit(1);
+  }
+}
@@ -0,0 +1,163 @@
+package edu.eci.arsw.immortals;
+
+import edu.eci.arsw.jfr.LockWaitEvent;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/** Implementaciones de {@link FightStrategy}; las de orden total usan {@link Immortal#order}. */
+final class FightStrategies {
+  private FightStrategies() {}
+
+  /**
+   * Monitores en orden total. Con hilos virtuales en Java 21 un {@code synchronized}
+   * fija el hilo a su portador: si el monitor esta tomado, el portador queda
+   * bloqueado y la contencion se come los nucleos. Queda como "monitor" para
+   * comparar; "ordered" hace lo mismo con {@code ReentrantLock}.
+   */
+  static final FightStrategy MONITOR_ORDERED = new FightStrategy() {
+    @Override public boolean fight(Immortal attacker, Immortal defender) {
+      Immortal first = attacker.order < defender.order ? attacker : defender;
+      Immortal second = first == attacker ? defender : attacker;
+      var wait = new LockWaitEvent();
+      wait.begin();
+      synchronized (first) {
+        synchronized (second) {
+          wait.commit("monitor", first.name(), second.name(), true, 1);
+          attacker.executeFight(defender);
+        }
+      }
+      return true;
+    }
+
+    @Override public String mode() { return "monitor"; }
+  };
+
+  /**
+   * Atacante y luego defensor, sin orden: dos peleas cruzadas se bloquean para
+   * siempre. Usa {@code lockInterruptibly} para que {@code stop()} pueda liberar
+   * a los bloqueados; el hilo virtual espera desmontado, sin fijar su portador.
+   */
+  static final FightStrategy NAIVE = new FightStrategy() {
+    @Override public boolean fight(Immortal attacker, Immortal defender) {
+      var wait = new LockWaitEvent();
+      wait.begin();
+      try {
+        attacker.lock.lockInterruptibly();
+        try {
+          defender.lock.lockInterruptibly();
+          try {
+            wait.commit("lock", attacker.name(), defender.name(), true, 1);
+            attacker.executeFight(defender);
+          } finally {
+            defender.lock.unlock();
+          }
+        } finally {
+          attacker.lock.unlock();
+        }
+        return true;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    @Override public String mode() { return "naive"; }
+  };
+
+  /** {@code ReentrantLock} en orden total: sin deadlocks y sin fijar hilos virtuales. */
+  static final FightStrategy ORDERED = new FightStrategy() {
+    @Override public boolean fight(Immortal attacker, Immortal defender) {
+      Immortal first = attacker.order < defender.order ? attacker : defender;
+      Immortal second = first == attacker ? defender : attacker;
+      var wait = new LockWaitEvent();
+      wait.begin();
+      first.lock.lock();
+      try {
+        second.lock.lock();
+        try {
+          wait.commit("lock", first.name(), second.name(), true, 1);
+          attacker.executeFight(defender);
+        } finally {
+          second.lock.unlock();
+        }
+      } finally {
+        first.lock.unlock();
+      }
+      return true;
+    }
+
+    @Override public String mode() { return "ordered"; }
+  };
+
+  static final FightStrategy STAMPED = new FightStrategy() {
+    @Override public boolean fight(Immortal attacker, Immortal defender) {
+      Immortal first = attacker.order < defender.order ? attacker : defender;
+      Immortal second = first == attacker ? defender : attacker;
+      var wait = new LockWaitEvent();
+      wait.begin();
+      long s1 = first.stamped.writeLock();
+      try {
+        long s2 = second.stamped.writeLock();
+        try {
+          wait.commit("stamped", first.name(), second.name(), true, 1);
+          attacker.executeFight(defender);
+        } finally {
+          second.stamped.unlockWrite(s2);
+        }
+      } finally {
+        first.stamped.unlockWrite(s1);
+      }
+      return true;
+    }
+
+    @Override public String mode() { return "stamped"; }
+  };
+
+  static final FightStrategy CAS = new FightStrategy() {
+    @Override public boolean fight(Immortal attacker, Immortal defender) {
+      return attacker.fightCas(defender);
+    }
+
+    @Override public String mode() { return "cas"; }
+  };
+
+  /** Sin orden: el timeout es lo que rompe el ciclo atacante/defensor que bloquea a "naive". */
+  static final class TryLock implements FightStrategy {
+    private final long timeoutNanos;
+
+    TryLock(Duration timeout) {
+      this.timeoutNanos = timeout.toNanos();
+    }
+
+    @Override public boolean fight(Immortal attacker, Immortal defender) {
+      var wait = new LockWaitEvent();
+      wait.begin();
+      try {
+        if (!attacker.lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS)) {
+          wait.commit("trylock", attacker.name(), defender.name(), false, 1);
+          return false;
+        }
+        try {
+          if (!defender.lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS)) {
+            wait.commit("trylock", attacker.name(), defender.name(), false, 1);
+            return false;
+          }
+          try {
+            wait.commit("trylock", attacker.name(), defender.name(), true, 1);
+            attacker.executeFight(defender);
+            return true;
+          } finally {
+            defender.lock.unlock();
+          }
+        } finally {
+          attacker.lock.unlock();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }
+
+    @Override public String mode() { return "trylock"; }
+  }
+}
@@ -0,0 +1,47 @@
+package edu.eci.arsw.immortals;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Como se sincroniza una pelea entre dos inmortales. Se resuelve una sola vez
+ * por {@link ImmortalManager} y se inyecta en cada {@link Immortal}, asi que el
+ * ciclo de pelea no consulta propiedades ni compara cadenas.
+ */
+public interface FightStrategy {
+  /** Nombres aceptados por {@link #of(String)}. */
+  String[] MODES = {"ordered", "naive", "trylock", "stamped", "cas", "monitor"};
+
+  /**
+   * Pelea de {@code attacker} contra {@code defender}. Devuelve false solo si se
+   * abandono por contencion (timeout o reserva ocupada); una pelea que no hace
+   * nada porque alguno ya murio cuenta como hecha.
+   */
+  boolean fight(Immortal attacker, Immortal defender);
+
+  /** Nombre con el que se resuelve en {@link #of(String)}. */
+  String mode();
+
+  /**
+   * <ul>
+   *   <li>{@code ordered}: {@code ReentrantLock} en orden total (sin deadlocks).</li>
+   *   <li>{@code naive}: {@code ReentrantLock} atacante → defensor (puede bloquearse).</li>
+   *   <li>{@code trylock}: {@code tryLock} atacante → defensor con timeout; si vence, se abandona.</li>
+   *   <li>{@code stamped}: bloqueo de escritura de {@code StampedLock} en orden total.</li>
+   *   <li>{@code cas}: sin locks, reserva ambos con un bit de la salud.</li>
+   *   <li>{@code monitor}: {@code synchronized} en orden total; el unico que fija
+   *       hilos virtuales a su portador (ver {@code PinningTest}).</li>
+   * </ul>
+   */
+  static FightStrategy of(String mode) {
+    return switch (mode.toLowerCase(Locale.ROOT)) {
+      case "ordered" -> FightStrategies.ORDERED;
+      case "naive" -> FightStrategies.NAIVE;
+      case "trylock" -> new FightStrategies.TryLock(Duration.ofMillis(Long.getLong("fightTimeoutMs", 1)));
+      case "stamped" -> FightStrategies.STAMPED;
+      case "cas" -> FightStrategies.CAS;
+      case "monitor" -> FightStrategies.MONITOR_ORDERED;
+      default -> throw new IllegalArgumentException("Unknown fight mode: " + mode);
+    };
+  }
+}
@@ -0,0 +1,111 @@
+package edu.eci.arsw.immortals;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cortes consistentes de salud sin pausar la simulacion.
+ *
+ * <p>Cada pelea confirma sus escrituras dentro de una epoca: entre
+ * {@link #enter()} y {@link #exit} (con ambos participantes ya reservados),
+ * antes de su primera escritura en la epoca cada participante guarda su salud
+ * previa y se marca con la epoca. Para tomar un corte se avanza la epoca de E a
+ * E+1, se espera a que terminen las peleas que alcanzaron a entrar en E (duran
+ * nanosegundos) y se recorre la poblacion: quien tenga marca mayor que E ya fue
+ * escrito en E+1 y aporta su salud previa; el resto aporta la actual. El
+ * resultado es el estado exacto al final de la epoca E mientras las peleas
+ * siguen corriendo.
+ */
+final class HealthEpochs {
+  private final LongAdder[] inFlight = {new LongAdder(), new LongAdder()};
+  private final LongAdder[] fights = {new LongAdder(), new LongAdder()};
+  private final LongAdder[] lost = {new LongAdder(), new LongAdder()};
+  private final ReentrantLock cutLock = new ReentrantLock();
+  private volatile long epoch = 1;
+  private long fightsAtCut = 0;
+  private long lostAtCut = 0;
+
+  /** Abre una confirmacion; devuelve la epoca a la que pertenece. */
+  long enter() {
+    while (true) {
+      long e = epoch;
+      LongAdder counter = inFlight[(int) (e & 1)];
+      counter.increment();
+      if (epoch == e) return e;
+      counter.decrement();
+    }
+  }
+
+  /** Cierra la confirmacion abierta en la epoca {@code e}. */
+  void exit(long e, int healthLost) {
+    exit(e, healthLost, 1);
+  }
+
+  /**
+   * Cierra una confirmacion que cuenta {@code fightsDone} peleas (0 si solo aplica
+   * la ganancia de una; todas las de una ronda en el motor "rounds").
+   */
+  void exit(long e, long healthLost, long fightsDone) {
+    int parity = (int) (e & 1);
+    fights[parity].add(fightsDone);
+    lost[parity].add(healthLost);
+    inFlight[parity].decrement();
+  }
+
+  /** Parte de peleas y salud perdida ya acumuladas (al restaurar un checkpoint); antes de empezar. */
+  void seed(long fightsSoFar, long lostSoFar) {
+    cutLock.lock();
+    try {
+      fightsAtCut = fightsSoFar;
+      lostAtCut = lostSoFar;
+    } finally {
+      cutLock.unlock();
+    }
+  }
+
+  /** Lo que debe verse de un valor en el corte {@code cut}. */
+  static int valueAt(long cut, int current, long stamp, int previous) {
+    return stamp > cut ? previous : current;
+  }
+
+  interface Scan {
+    /** Recorre la poblacion sumando {@code valueAt(cut, ...)} de cada inmortal en {@code acc}. */
+    void scan(long cut, Accumulator acc);
+  }
+
+  static final class Accumulator {
+    long total;
+    int alive;
+    int dead;
+
+    void add(int health) {
+      total += health;
+      if (health > 0) alive++;
+      else dead++;
+    }
+  }
+
+  HealthSnapshot cut(Scan population) {
+    cutLock.lock();
+    try {
+      long start = System.nanoTime();
+      long e = epoch;
+      epoch = e + 1;
+      int parity = (int) (e & 1);
+      int spins = 0;
+      while (inFlight[parity].sum() != 0) {
+        if (++spins < 100) Thread.onSpinWait();
+        else LockSupport.parkNanos(10_000);
+      }
+      fightsAtCut += fights[parity].sumThenReset();
+      lostAtCut += lost[parity].sumThenReset();
+      var acc = new Accumulator();
+      population.scan(e, acc);
+      return new HealthSnapshot(e, acc.total, acc.alive, acc.dead, fightsAtCut, lostAtCut,
+              System.nanoTime() - start);
+    } finally {
+      cutLock.unlock();
+    }
+  }
+}
@@ -0,0 +1,13 @@
+package edu.eci.arsw.immortals;
+
+/**
+ * Corte consistente de la poblacion tomado sin pausar (ver {@link ImmortalManager#consistentSnapshot()}).
+ * Todos los campos corresponden al mismo instante, asi que
+ * {@code totalHealth == saludInicial - healthLost} se cumple exactamente.
+ *
+ * @param epoch    epoca cerrada por el corte
+ * @param fights   peleas confirmadas hasta el corte
+ * @param cutNanos lo que tardo el corte (espera de peleas en curso + recorrido)
+ */
+public record HealthSnapshot(long epoch, long totalHealth, int alive, int dead,
+                             long fights, long healthLost, long cutNanos) {}
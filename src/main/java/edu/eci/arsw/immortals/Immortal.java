@@ -1,48 +1,138 @@
 package edu.eci.arsw.immortals;
 
+import edu.eci.arsw.concurrency.AdaptiveBackoff;
+import edu.eci.arsw.concurrency.MpscMailbox;
 import edu.eci.arsw.concurrency.PauseController;
-import java.util.List;
+import edu.eci.arsw.jfr.FightEvent;
+import java.time.Duration;
 import java.util.Objects;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BooleanSupplier;
 
 public final class Immortal implements Runnable {
+  /** Bit de reserva usado por el modo "cas": la salud real son los 31 bits bajos. */
+  private static final int CLAIMED = Integer.MIN_VALUE;
+  private static final int OPPONENT_TRIES = 4;
+  /** Ritmo de la simulacion entre peleas; los reintentos por contencion no lo usan. */
+  private static final long PACE_MILLIS = 2;
+  private static final long PACE_NANOS = PACE_MILLIS * 1_000_000;
+  /** Mensajes del modo actor: un golpe con su dano, o la respuesta con la salud ganada (-1 si no hubo pelea). */
+  private static final int ATTACK = 0;
+  private static final int REPLY = 1;
+  private static final AtomicLong SEQUENCE = new AtomicLong();
+  /** Compartida por los inmortales creados fuera de un {@link ImmortalManager} (pruebas, vistas). */
+  private static final AdaptiveBackoff STANDALONE_BACKOFF = newBackoff();
+
   private final String name;
   private final AtomicInteger health;
   private final int damage;
-  private final List<Immortal> population;
-  private final ScoreBoard scoreBoard;
+  /** Arena actual; solo la cambia el hilo de este inmortal (ver {@link #migrate}). */
+  private volatile Arena arena;
   private final PauseController controller;
+  private final HealthEpochs epochs;
+  private final FightStrategy strategy;
+  private final AdaptiveBackoff backoff;
+  /** Orden total para las estrategias que toman dos locks; unico en la JVM. */
+  final long order = SEQUENCE.getAndIncrement();
+  /** Id en la poblacion del manager ({@link FightLog}, checkpoints); -1 fuera de un manager. Se fija antes de arrancar. */
+  int id = -1;
+  /** Locks de las estrategias "ordered"/"naive"/"trylock" y "stamped". */
+  final ReentrantLock lock = new ReentrantLock();
+  final StampedLock stamped = new StampedLock();
   private volatile boolean running = true;
+  /** Peleas ganadas como atacante; solo las escribe el hilo de este inmortal. */
+  volatile long wins = 0;
+  /**
+   * Posicion en el {@link AliveIndex} de su arena; se escribe con el lock del
+   * indice. Es volatile porque al mudarse la escribe el indice de otra arena.
+   */
+  volatile int aliveSlot = -1;
+  /** Posicion en {@link PopulationRegistry}; solo se lee y escribe con el lock del registro. */
+  int registrySlot = -1;
+  /** Ultima epoca en la que se escribio la salud y el valor que tenia justo antes (ver {@link HealthEpochs}). */
+  private volatile long stamp = 0;
+  private volatile int prevHealth = 0;
+  /** Solo en el modo actor (null en el resto): la salud la escribe unicamente el hilo de este inmortal. */
+  private final MpscMailbox<Immortal> mailbox;
+  private final MpscMailbox.Handler<Immortal> inbox;
+  /** Hilo del actor, para despertarlo al enviarle un mensaje. */
+  private volatile Thread owner;
+  /** El actor salio de su ciclo: ya no va a responder. */
+  private volatile boolean done = false;
+  // Estado del actor; solo lo toca su hilo.
+  private Immortal target;
+  private long sentAt;
+  private long nextAttack;
+  private int failedSends;
+
+  public Immortal(String name, int health, int damage, AliveIndex alive, ScoreBoard scoreBoard, PauseController controller) {
+    this(name, health, damage, alive, scoreBoard, controller, new HealthEpochs(), FightStrategies.ORDERED,
+            STANDALONE_BACKOFF);
+  }
+
+  Immortal(String name, int health, int damage, AliveIndex alive, ScoreBoard scoreBoard, PauseController controller,
+           HealthEpochs epochs, FightStrategy strategy, AdaptiveBackoff backoff) {
+    this(name, health, damage, new Arena(Objects.requireNonNull(alive), Objects.requireNonNull(scoreBoard)),
+            controller, epochs, strategy, backoff);
+  }
+
+  Immortal(String name, int health, int damage, Arena arena, PauseController controller,
+           HealthEpochs epochs, FightStrategy strategy, AdaptiveBackoff backoff) {
+    this(name, health, damage, arena, controller, epochs, strategy, backoff, null);
+  }
 
-  public Immortal(String name, int health, int damage, List<Immortal> population, ScoreBoard scoreBoard, PauseController controller) {
+  /** @param mailbox si no es null, el inmortal corre como actor (ver {@link #actorLoop()}) e ignora {@code strategy} */
+  Immortal(String name, int health, int damage, Arena arena, PauseController controller,
+           HealthEpochs epochs, FightStrategy strategy, AdaptiveBackoff backoff, MpscMailbox<Immortal> mailbox) {
+    this.mailbox = mailbox;
+    this.inbox = mailbox == null ? null : this::receive;
+    this.epochs = Objects.requireNonNull(epochs);
+    this.strategy = Objects.requireNonNull(strategy);
+    this.backoff = Objects.requireNonNull(backoff);
     this.name = Objects.requireNonNull(name);
     this.health = new AtomicInteger(health);
     this.damage = damage;
-    this.population = Objects.requireNonNull(population);
-    this.scoreBoard = Objects.requireNonNull(scoreBoard);
+    this.arena = Objects.requireNonNull(arena);
     this.controller = Objects.requireNonNull(controller);
   }
 
+  /** Espera entre reintentos de una pelea abandonada: desde 50 us sin contencion hasta 16 ms con mucha. */
+  static AdaptiveBackoff newBackoff() {
+    return new AdaptiveBackoff(Duration.ofNanos(50_000), Duration.ofMillis(16));
+  }
+
   public String name() { return name; }
-  public int getHealth() { return health.get(); }
-  public boolean isAlive() { return health.get() > 0 && running; }
+  public int getHealth() { return health.get() & ~CLAIMED; }
+  public boolean isAlive() { return getHealth() > 0 && running; }
+  public long wins() { return wins; }
+  Arena arena() { return arena; }
+
+  /** Salud vista en el corte de epoca {@code cut}. */
+  int healthAt(long cut) {
+    int current = getHealth();
+    return HealthEpochs.valueAt(cut, current, stamp, prevHealth);
+  }
+
+  /** Guarda la salud previa antes de la primera escritura de la epoca; requiere tener reservado al inmortal. */
+  private void stage(long e, int current) {
+    if (stamp < e) {
+      prevHealth = current;
+      stamp = e;
+    }
+  }
   public void stop() { running = false; }
 
   @Override
   public void run() {
     controller.registerThread();  
     try {
-      while (running) {
-        controller.awaitIfPaused();
-        if (!running) break;
-        var opponent = pickOpponent();
-        if (opponent == null) continue;
-        String mode = System.getProperty("fight", "ordered");
-        if ("naive".equalsIgnoreCase(mode)) fightNaive(opponent);
-        else fightOrdered(opponent);
-        Thread.sleep(2);
-      }
+      if (mailbox != null) actorLoop();
+      else fightLoop();
     } catch (InterruptedException ie) {
       Thread.currentThread().interrupt();
     } finally {
@@ -50,38 +140,239 @@ public final class Immortal implements Runnable {
     }
   }
 
-  private Immortal pickOpponent() {
-    if (population.size() <= 1) return null;
-    Immortal other;
-    int attempts = 0;
-    int maxAttempts = population.size() * 2;
-    do {
-      other = population.get(ThreadLocalRandom.current().nextInt(population.size()));
-      attempts++;
-      if (attempts > maxAttempts) return null;
-    } while (other == this || !other.isAlive());
-    return other;
+  private void fightLoop() throws InterruptedException {
+    int attempt = 0;
+    long firstTry = 0;
+    while (running) {
+      controller.awaitIfPaused();
+      if (!running) break;
+      var opponent = pickOpponent();
+      if (opponent == null) {
+        Thread.sleep(PACE_MILLIS);
+        continue;
+      }
+      long start = System.nanoTime();
+      if (attempt == 0) firstTry = start;
+      boolean fought = fight(opponent);
+      long end = System.nanoTime();
+      ScoreBoard score = arena.score;
+      if (score.timingFights()) score.recordFightLatency(end - start);
+      if (fought) {
+        backoff.onSuccess(end - firstTry, attempt);
+        attempt = 0;
+        var rnd = ThreadLocalRandom.current();
+        if (arena.shouldMigrate(rnd)) migrate(rnd);
+        Thread.sleep(PACE_MILLIS);
+      } else {
+        backoff.onFailure(end - start);
+        backoff.pause(++attempt);
+      }
+    }
   }
 
-  private void fightNaive(Immortal other) {
-    synchronized (this) {
-      synchronized (other) {
-        executeFight(other);
+  /**
+   * Modo actor: sin locks ni CAS sobre la salud ajena. El atacante manda un
+   * golpe al buzon del defensor y espera su respuesta atendiendo el propio
+   * buzon; el defensor aplica el dano sobre su salud y responde con la
+   * ganancia, que el atacante suma al recibirla. Cada actor tiene a lo sumo un
+   * golpe sin responder, asi que basta reservar un slot del buzon para la
+   * respuesta. En pausa no se mandan golpes nuevos y solo se estaciona quien no
+   * espera respuesta; si le llega un golpe estacionado, lo atiende.
+   */
+  private void actorLoop() {
+    owner = Thread.currentThread();
+    BooleanSupplier hasMail = () -> !mailbox.isEmpty();
+    nextAttack = System.nanoTime();
+    try {
+      while (running && !owner.isInterrupted()) {
+        mailbox.drain(inbox);
+        if (!running) break;
+        // Todo lo que respondio quien termino ya esta en el buzon: si no llego, no va a llegar.
+        if (target != null && target.done) {
+          mailbox.drain(inbox);
+          target = null;
+        }
+        if (controller.paused()) {
+          if (target == null) {
+            try {
+              controller.awaitIfPaused(hasMail);
+            } catch (InterruptedException e) {
+              owner.interrupt();
+            }
+          } else {
+            LockSupport.parkNanos(PACE_NANOS);
+          }
+          continue;
+        }
+        long now = System.nanoTime();
+        if (target == null && now - nextAttack >= 0) attack(now);
+        long wait = target != null ? PACE_NANOS : nextAttack - System.nanoTime();
+        if (wait > 0 && mailbox.isEmpty()) LockSupport.parkNanos(wait);
       }
+    } finally {
+      done = true;
     }
   }
 
-  private void fightOrdered(Immortal other) {
-    Immortal first = this.name.compareTo(other.name) < 0 ? this : other;
-    Immortal second = this.name.compareTo(other.name) < 0 ? other : this;
-    synchronized (first) {
-      synchronized (second) {
-        executeFight(other);
+  private void attack(long now) {
+    Immortal opponent = pickOpponent();
+    if (opponent == null || opponent.mailbox == null) {
+      nextAttack = now + PACE_NANOS;
+    } else if (opponent.mailbox.offer(this, ATTACK, damage, 1)) {
+      target = opponent;
+      sentAt = now;
+      LockSupport.unpark(opponent.owner);
+      if (controller.paused()) controller.wakeParked();
+    } else {
+      // Buzon lleno: contencion en el defensor.
+      backoff.onFailure(0);
+      nextAttack = now + backoff.retryDelay(++failedSends);
+    }
+  }
+
+  private void receive(Immortal from, int kind, int value) {
+    if (kind == ATTACK) takeHit(from, value);
+    else takeReply(from, value);
+  }
+
+  /** Como defensor: aplica el golpe a la salud propia y responde siempre, para que el atacante deje de esperar. */
+  private void takeHit(Immortal attacker, int hit) {
+    var event = new FightEvent();
+    event.begin();
+    int current = health.get();
+    int gained = -1;
+    if (current > 0 && running) {
+      int actualDamage = Math.min(hit, current);
+      int left = current - actualDamage;
+      gained = actualDamage / 2;
+      long e = epochs.enter();
+      stage(e, current);
+      health.set(left);
+      arena.score.recordFight(actualDamage, 0, left == 0);
+      FightLog log = arena.log;
+      if (log != null) log.append(FightLog.HIT, attacker.id, id, actualDamage, 0, -1, left);
+      epochs.exit(e, actualDamage);
+      if (left == 0) {
+        running = false;
+        arena.alive.remove(this);
       }
+      event.commit(attacker.name, name, "actor", left == 0 ? "killed" : "hit");
+    } else {
+      event.commit(attacker.name, name, "actor", "skipped");
+    }
+    attacker.mailbox.offer(this, REPLY, gained, 0);
+    LockSupport.unpark(attacker.owner);
+  }
+
+  /** Como atacante: suma la ganancia (si sigue vivo) y queda libre para el siguiente golpe. */
+  private void takeReply(Immortal defender, int gained) {
+    if (defender == target) {
+      target = null;
+      long now = System.nanoTime();
+      ScoreBoard score = arena.score;
+      if (score.timingFights()) score.recordFightLatency(now - sentAt);
+      backoff.onSuccess(now - sentAt, failedSends);
+      failedSends = 0;
+      nextAttack = now + PACE_NANOS;
+    }
+    if (gained < 0) return;
+    wins++;
+    int current = health.get();
+    int applied = current > 0 ? gained : 0;
+    if (applied > 0) {
+      long e = epochs.enter();
+      stage(e, current);
+      health.set(current + applied);
+      arena.score.recordGain(applied);
+      epochs.exit(e, -applied, 0);
     }
+    FightLog log = arena.log;
+    if (log != null) log.append(FightLog.GAIN, id, defender.id, 0, applied, current + applied, -1);
+    var rnd = ThreadLocalRandom.current();
+    if (arena.shouldMigrate(rnd)) migrate(rnd);
+  }
+
+  private Immortal pickOpponent() {
+    AliveIndex alive = arena.alive;
+    if (alive.size() <= 1) return null;
+    var rnd = ThreadLocalRandom.current();
+    for (int attempt = 0; attempt < OPPONENT_TRIES; attempt++) {
+      Immortal other = alive.sample(rnd);
+      if (other == null || other == this) continue;
+      if (other.isAlive()) return other;
+      // Solo los muertos salen del indice; uno detenido por stop() sigue vivo para el conteo final.
+      if (other.getHealth() <= 0) alive.remove(other);
+    }
+    return null;
+  }
+
+  /**
+   * Se muda a otra arena de su grupo. Solo lo llama su propio hilo entre
+   * peleas; si muere mientras tanto, quien lo mata o quien lo muestree despues
+   * lo saca del indice nuevo.
+   */
+  private void migrate(ThreadLocalRandom rnd) {
+    Arena from = arena;
+    Arena to = from.neighbour(rnd);
+    if (to == from || !from.alive.remove(this)) return;
+    arena = to;
+    to.alive.add(this);
+    to.migrationsIn.increment();
+    if (getHealth() <= 0) to.alive.remove(this);
+  }
+
+  /** Pelea con la estrategia inyectada y la registra como {@link FightEvent} si JFR la graba. */
+  boolean fight(Immortal other) {
+    var event = new FightEvent();
+    event.begin();
+    long before = wins;
+    boolean fought = strategy.fight(this, other);
+    if (event.shouldCommit()) {
+      String outcome = !fought ? "abandoned" : wins == before ? "skipped" : other.getHealth() == 0 ? "killed" : "hit";
+      event.commit(name, other.name, strategy.mode(), outcome);
+    }
+    return fought;
+  }
+
+  /**
+   * Pelea sin monitores: el atacante y luego el defensor se reservan con un CAS
+   * que enciende {@link #CLAIMED}. Si alguno ya esta reservado o muerto la pelea
+   * se abandona (nadie espera a nadie), y mientras ambos estan reservados ningun
+   * otro hilo puede tocar su salud, asi que la transferencia es atomica.
+   * Devuelve false si se abandono porque alguno estaba reservado.
+   */
+  boolean fightCas(Immortal other) {
+    int mine = health.get();
+    if (mine == 0) return true;
+    if (mine < 0 || !health.compareAndSet(mine, mine | CLAIMED)) return false;
+    int theirs;
+    do {
+      theirs = other.health.get();
+      if (theirs <= 0) {
+        health.set(mine);
+        return theirs == 0;
+      }
+    } while (!other.health.compareAndSet(theirs, theirs | CLAIMED));
+
+    int actualDamage = Math.min(this.damage, theirs);
+    int left = theirs - actualDamage;
+    long e = epochs.enter();
+    stage(e, mine);
+    other.stage(e, theirs);
+    arena.score.recordFight(actualDamage, actualDamage / 2, left == 0);
+    wins++;
+    if (left == 0) other.running = false;
+    FightLog log = arena.log;
+    if (log != null) log.fight(id, other.id, actualDamage, actualDamage / 2, mine + actualDamage / 2, left);
+    other.health.set(left);
+    health.set(mine + actualDamage / 2);
+    epochs.exit(e, actualDamage - actualDamage / 2);
+    if (left == 0) other.arena.alive.remove(other);
+    return true;
   }
 
-  private void executeFight(Immortal other) {
+  /** Transfiere la salud; quien llama ya tiene excluidos a ambos participantes. */
+  void executeFight(Immortal other) {
     if (this.health.get() <= 0 || other.health.get() <= 0) {
       return;
     }
@@ -89,13 +380,22 @@ public final class Immortal implements Runnable {
     int otherHealth = other.health.get();
     int actualDamage = Math.min(this.damage, otherHealth);
 
+    long e = epochs.enter();
+    stage(e, this.health.get());
+    other.stage(e, otherHealth);
     other.health.addAndGet(-actualDamage);
     this.health.addAndGet(actualDamage / 2);
-    scoreBoard.recordFight();
+    arena.score.recordFight(actualDamage, actualDamage / 2, other.health.get() <= 0);
+    wins++;
 
-    if (other.health.get() <= 0) {
+    boolean killed = other.health.get() <= 0;
+    if (killed) {
       other.health.set(0);
       other.running = false;
     }
+    FightLog log = arena.log;
+    if (log != null) log.fight(id, other.id, actualDamage, actualDamage / 2, health.get(), other.health.get());
+    epochs.exit(e, actualDamage - actualDamage / 2);
+    if (killed) other.arena.alive.remove(other);
   }
 }
\ No newline at end of file
@@ -1,44 +1,276 @@
 package edu.eci.arsw.immortals;
 
+import edu.eci.arsw.concurrency.AdaptiveBackoff;
+import edu.eci.arsw.concurrency.MpscMailbox;
 import edu.eci.arsw.concurrency.PauseController;
+import edu.eci.arsw.concurrency.PauseResult;
+import edu.eci.arsw.metrics.MetricsServer;
+import edu.eci.arsw.metrics.PrometheusText;
+import edu.eci.arsw.metrics.TelemetryRing;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.Collections;
 
 public final class ImmortalManager implements AutoCloseable {
-  private final List<Immortal> population = new CopyOnWriteArrayList<>();
-  private final List<Future<?>> futures = new CopyOnWriteArrayList<>();
+  private final PopulationRegistry population = new PopulationRegistry();
+  private final AtomicInteger nextId = new AtomicInteger();
   private final PauseController controller = new PauseController();
   private final ScoreBoard scoreBoard = new ScoreBoard();
-  private ExecutorService exec;
-  private final String fightMode;
+  private final Arena[] arenas;
+  private final HealthEpochs epochs = new HealthEpochs();
+  private final AdaptiveBackoff backoff = Immortal.newBackoff();
+  private final TelemetrySampler telemetry = new TelemetrySampler(this,
+          Duration.ofMillis(Long.getLong("telemetry.ms", 250)), Integer.getInteger("telemetry.samples", 1200));
+  private volatile ExecutorService exec;
+  /** Una sola instancia para que {@link #stop()} quite justo la fuente que registro {@link #start()}. */
+  private final Consumer<PrometheusText> metricsSource = this::writeMetrics;
+  private final FightStrategy fight;
   private final int initialHealth;
   private final int damage;
+  private final ArraySimulation arrays;
+  /** Capacidad del buzon de cada inmortal con el motor "actors"; 0 con los demas. */
+  private final int mailboxCapacity;
+  /** Log de peleas de {@code -Dfightlog=dir}, o null. */
+  private final FightLog log;
   private volatile boolean running = false;
+  /** Peleas y hora del scrape anterior, para la tasa de peleas. */
+  private final AtomicReference<long[]> lastScrape = new AtomicReference<>(new long[]{System.nanoTime(), 0});
 
   public ImmortalManager(int n, String fightMode) {
     this(n, fightMode, Integer.getInteger("health", 100), Integer.getInteger("damage", 10));
   }
 
   public ImmortalManager(int n, String fightMode, int initialHealth, int damage) {
-    this.fightMode = fightMode;
-    this.initialHealth = initialHealth;
-    this.damage = damage;
-    reiniciarPoblacion(n);
+    this(n, fightMode, initialHealth, damage, "threads");
+  }
+
+  /**
+   * @param engine "threads" (un hilo virtual por inmortal), "actors" (un hilo
+   *               virtual por inmortal, peleas por mensajes sin locks; ignora
+   *               {@code fightMode}), "arrays" (arreglos primitivos recorridos
+   *               por un hilo por nucleo) o "rounds" (los mismos arreglos
+   *               avanzando por rondas sincronas con emparejamientos que salen
+   *               de {@code -Dseed}, 42 por defecto; ver {@link ArraySimulation}).
+   * @throws IllegalArgumentException si {@code fightMode} no esta en {@link FightStrategy#MODES}
+   */
+  public ImmortalManager(int n, String fightMode, int initialHealth, int damage, String engine) {
+    this(n, fightMode, initialHealth, damage, engine, Integer.getInteger("arenas", 1));
+  }
+
+  /**
+   * @param arenas en cuantas arenas se reparte la poblacion del motor "threads":
+   *               cada una elige oponentes de su propio indice y cuenta en su
+   *               propia franja del {@link ScoreBoard}; cada
+   *               {@code -Darena.migrateEvery} peleas (256 por defecto, en
+   *               promedio) un inmortal se muda a otra arena. El motor "arrays"
+   *               lo ignora.
+   */
+  public ImmortalManager(int n, String fightMode, int initialHealth, int damage, String engine, int arenas) {
+    this(n, fightMode, initialHealth, damage, engine, arenas, null);
+  }
+
+  private ImmortalManager(int n, String fightMode, int initialHealth, int damage, String engine, int arenas,
+                          Checkpoint.Image image) {
+    this.fight = FightStrategy.of(fightMode);
+    if (arenas < 1) throw new IllegalArgumentException("arenas must be at least 1");
+    this.log = image == null ? openLog(n, initialHealth, damage) : null;
+    try {
+      scoreBoard.trackWins(this::copyWins);
+      this.arenas = Arena.group(arenas, scoreBoard, Integer.getInteger("arena.migrateEvery", 256), log);
+      this.mailboxCapacity = "actors".equalsIgnoreCase(engine) ? Integer.getInteger("actor.mailbox", 16) : 0;
+      this.initialHealth = initialHealth;
+      this.damage = damage;
+      boolean rounds = "rounds".equalsIgnoreCase(engine);
+      if (rounds || "arrays".equalsIgnoreCase(engine)) {
+        long seed = Long.getLong("seed", 42);
+        this.arrays = image != null ? new ArraySimulation(image, scoreBoard, controller, epochs, log, rounds, seed)
+                : new ArraySimulation(n, initialHealth, damage, scoreBoard, controller, epochs, log, rounds, seed);
+        nextId.set(n);
+      } else {
+        this.arrays = null;
+        if (image == null) reiniciarPoblacion(n);
+        else restorePopulation(image);
+      }
+      if (image != null) {
+        nextId.set(image.header().spawned());
+        ScoreBoard.Snapshot score = image.header().score();
+        scoreBoard.add(score);
+        epochs.seed(score.fights(), score.healthLost());
+      }
+    } catch (RuntimeException | Error e) {
+      // Sin esto el hilo escritor del log quedaria vivo sin nadie que lo cierre.
+      if (log != null) {
+        try {
+          log.close();
+        } catch (IOException suppressed) {
+          e.addSuppressed(suppressed);
+        }
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Con {@code -Dfightlog=dir} registra cada pelea en un {@link FightLog} (segmentos
+   * de {@code -Dfightlog.segmentMb} MB, 64 por defecto) dentro de un directorio
+   * propio de la corrida, {@code dir/run-<fecha>}: cada Start deja su log y no
+   * borra los anteriores. Un manager restaurado no registra: el log siempre
+   * empieza desde la poblacion inicial.
+   */
+  private static FightLog openLog(int n, int initialHealth, int damage) {
+    String dir = System.getProperty("fightlog");
+    if (dir == null || dir.isBlank()) return null;
+    try {
+      Path run = FightLog.newRunDirectory(Path.of(dir));
+      return FightLog.open(run, Long.getLong("fightlog.segmentMb", 64) << 20, n, initialHealth, damage);
+    } catch (IOException e) {
+      throw new UncheckedIOException("cannot open fight log in " + dir, e);
+    }
+  }
+
+  /** El log de peleas, o null si no se registran. */
+  public FightLog fightLog() {
+    return log;
+  }
+
+  /**
+   * Crea un manager detenido con la poblacion y los contadores guardados por
+   * {@link #checkpoint}. El archivo se mapea y cada seccion se copia en bloque
+   * (el motor "arrays" no crea objetos por inmortal), asi que restaurar millones
+   * toma milisegundos; con "threads"/"actors" se crea un {@link Immortal} por fila.
+   */
+  public static ImmortalManager restore(Path file) throws IOException {
+    return fromImage(Checkpoint.read(file));
+  }
+
+  /** Manager detenido con la poblacion y los contadores de {@code image} (ver {@link FightLogReplay#rebuild}). */
+  static ImmortalManager fromImage(Checkpoint.Image image) {
+    Checkpoint.Header h = image.header();
+    return new ImmortalManager(h.count(), h.fightMode(), h.initialHealth(), h.damage(), h.engine(), h.arenas(), image);
+  }
+
+  private void restorePopulation(Checkpoint.Image image) {
+    int n = image.header().count();
+    for (int i = 0; i < n; i++) {
+      Immortal im = newImmortal(image.ids().get(i), image.health().get(i));
+      im.wins = image.wins().get(i);
+    }
+  }
+
+  /**
+   * Guarda la poblacion (ids, salud, victorias, vivos) y los contadores en
+   * {@code file} con el formato de {@link Checkpoint}. Si la simulacion no
+   * estaba pausada la pausa mientras escribe y la reanuda al terminar. Si hay
+   * {@link FightLog}, antes de escribir deja en el una marca con las peleas del
+   * checkpoint para que {@link FightLogReplay} sepa donde cortar.
+   *
+   * @return bytes escritos
+   * @throws IllegalStateException si no todos los hilos se detuvieron a tiempo
+   */
+  public long checkpoint(Path file) throws IOException {
+    boolean wasPaused = controller.paused();
+    PauseResult paused = pause();
+    try {
+      if (!paused.quiesced()) {
+        throw new IllegalStateException("simulation did not quiesce (" + paused.parked() + "/" + paused.running()
+                + " parked); checkpoint aborted");
+      }
+      if (log != null) log.mark(scoreBoard.totalFights());
+      String engine = engine();
+      if (arrays != null) {
+        var h = new Checkpoint.Header(engine, fight.mode(), 1, arrays.size(), initialHealth, damage, nextId.get(),
+                scoreBoard.snapshot());
+        return Checkpoint.write(file, h, arrays::export);
+      }
+      List<Immortal> members = population.snapshot();
+      var h = new Checkpoint.Header(engine, fight.mode(), arenas.length, members.size(), initialHealth, damage,
+              nextId.get(), scoreBoard.snapshot());
+      return Checkpoint.write(file, h, (ids, health, wins, alive) -> {
+        for (int i = 0; i < members.size(); i++) {
+          Immortal im = members.get(i);
+          int hp = im.getHealth();
+          ids.put(i, im.id);
+          health.put(i, hp);
+          wins.put(i, im.wins());
+          alive.put(i, (byte) (hp > 0 ? 1 : 0));
+        }
+      });
+    } finally {
+      if (!wasPaused) resume();
+    }
+  }
+
+  /** "threads", "actors", "arrays" o "rounds". */
+  public String engine() {
+    if (arrays != null) return arrays.rounds() ? "rounds" : "arrays";
+    return mailboxCapacity > 0 ? "actors" : "threads";
+  }
+
+  /**
+   * Motor "rounds" detenido: avanza {@code rounds} rondas en el hilo que llama.
+   * Dos managers con la misma poblacion y la misma semilla terminan igual.
+   *
+   * @return peleas resueltas
+   * @throws UnsupportedOperationException con otro motor
+   * @throws IllegalStateException si la simulacion esta corriendo
+   */
+  public long runRounds(int rounds) {
+    if (arrays == null) throw new UnsupportedOperationException("only the rounds engine advances by rounds");
+    return arrays.runRounds(rounds);
+  }
+
+  /** Salud con la que empezaron todos los inmortales creados (incluidos los de {@link #spawn()}). */
+  public long initialTotalHealth() {
+    return (long) nextId.get() * initialHealth;
   }
 
   private void reiniciarPoblacion(int n) {
     population.clear();
     for (int i = 0; i < n; i++) {
-      Immortal immortal = new Immortal("Immortal-" + i, initialHealth, damage,
-              population, scoreBoard, controller);
-      population.add(immortal);
+      newImmortal();
+    }
+  }
+
+  private Immortal newImmortal() {
+    return newImmortal(nextId.getAndIncrement(), initialHealth);
+  }
+
+  /** Reparte en ronda: el inmortal i empieza en la arena {@code i % arenas}. Los muertos no entran al indice. */
+  private Immortal newImmortal(int id, int health) {
+    Arena arena = arenas[id % arenas.length];
+    Immortal immortal = new Immortal("Immortal-" + id, health, damage, arena, controller, epochs, fight,
+            backoff, mailboxCapacity > 0 ? new MpscMailbox<>(mailboxCapacity) : null);
+    immortal.id = id;
+    population.add(immortal);
+    if (health > 0) arena.alive.add(immortal);
+    else immortal.stop();
+    return immortal;
+  }
+
+  /** Agrega un inmortal nuevo; si la simulacion corre, empieza a pelear de inmediato. */
+  public Immortal spawn() {
+    if (arrays != null) throw new UnsupportedOperationException("spawn is not supported by the " + engine() + " engine");
+    Immortal immortal = newImmortal();
+    ExecutorService current = exec;
+    if (running && current != null) {
+      try {
+        current.submit(immortal);
+      } catch (RejectedExecutionException stopping) {
+        // stop() en curso: queda en la poblacion sin hilo, igual que el resto
+      }
     }
+    return immortal;
   }
 
   public synchronized void start() {
@@ -46,20 +278,26 @@ public final class ImmortalManager implements AutoCloseable {
       stop();
     }
     running = true;
-    System.setProperty("fight", fightMode);
+    MetricsServer metrics = MetricsServer.global();
+    if (metrics != null) metrics.register("immortals", metricsSource);
+    telemetry.start();
+    if (arrays != null) {
+      arrays.start();
+      return;
+    }
     exec = Executors.newVirtualThreadPerTaskExecutor();
-    futures.clear();
 
     for (Immortal im : population) {
-      futures.add(exec.submit(im));
+      exec.submit(im);
     }
   }
 
-  public void pause() {
+  public PauseResult pause() {
     try {
-      controller.pause();
+      return controller.pause();
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
+      return new PauseResult(controller.parkedCount(), controller.runningCount(), 0, false);
     }
   }
 
@@ -69,7 +307,11 @@ public final class ImmortalManager implements AutoCloseable {
 
   public void stop() {
     running = false;
+    MetricsServer metrics = MetricsServer.global();
+    if (metrics != null) metrics.unregister("immortals", metricsSource);
+    telemetry.stop();
     controller.shutdown();  
+    if (arrays != null) arrays.stop();
     for (Immortal im : population) {
       im.stop();
     }
@@ -85,37 +327,199 @@ public final class ImmortalManager implements AutoCloseable {
       }
       exec = null;
     }
-    futures.clear();
+    if (log != null) {
+      try {
+        log.flush();
+      } catch (IOException e) {
+        // El error queda guardado en el log y lo reporta close().
+      }
+    }
   }
 
+  /** Recorre por indice, sin iterador, para que el muestreo de telemetria no asigne memoria. */
   public int aliveCount() {
+    if (arrays != null) return arrays.aliveCount();
     int count = 0;
-    for (Immortal im : population) {
-      if (im.isAlive()) count++;
+    var view = population.view();
+    for (int i = 0, n = view.slots(); i < n; i++) {
+      Immortal im = view.get(i);
+      if (im != null && im.isAlive()) count++;
     }
     return count;
   }
 
   public long totalHealth() {
+    if (arrays != null) return arrays.totalHealth();
     long sum = 0;
-    for (Immortal im : population) {
-      sum += im.getHealth();
+    var view = population.view();
+    for (int i = 0, n = view.slots(); i < n; i++) {
+      Immortal im = view.get(i);
+      if (im != null) sum += im.getHealth();
     }
     return sum;
   }
 
+  /**
+   * Salud total, vivos y peleas en un mismo instante, sin pausar: solo espera a
+   * que terminen las peleas que ya estaban escribiendo. Los inmortales agregados
+   * con {@link #spawn()} o quitados con {@link #removeDead()} durante el corte
+   * pueden o no contarse; los demas se cuentan exactamente una vez.
+   */
+  public HealthSnapshot consistentSnapshot() {
+    if (arrays != null) return arrays.consistentSnapshot();
+    return epochs.cut((cut, acc) -> {
+      for (Immortal im : population) acc.add(im.healthAt(cut));
+    });
+  }
+
   public void removeDead() {
-    List<Immortal> toRemove = new ArrayList<>();
-    for (Immortal im : population) {
-      if (!im.isAlive()) {
-        toRemove.add(im);
+    if (arrays != null) {
+      arrays.removeDead();
+      return;
+    }
+    population.removeIf(im -> !im.isAlive());
+  }
+
+  /**
+   * Nombre, salud, victorias y estado de cada inmortal, leidos sin pausar ni
+   * tomar locks. Con el motor "arrays" no crea objetos {@link Immortal}, asi que
+   * es la forma barata de mostrar poblaciones grandes.
+   */
+  public List<ImmortalStatus> statusSnapshot() {
+    if (arrays != null) return arrays.statusSnapshot();
+    List<ImmortalStatus> rows = new ArrayList<>(population.size());
+    for (Immortal im : population) rows.add(new ImmortalStatus(im.name(), im.getHealth(), im.wins(), im.isAlive()));
+    return rows;
+  }
+
+  /**
+   * Copia id, vida, victorias y estado de cada inmortal en los arreglos dados,
+   * sin crear objetos por fila. Escribe a lo sumo {@code ids.length} filas y
+   * devuelve cuantas hay: si es mayor, la copia quedo corta y hay que repetirla.
+   */
+  public int copyStatus(int[] ids, int[] health, long[] wins, boolean[] alive) {
+    if (arrays != null) return arrays.copyStatus(ids, health, wins, alive);
+    var view = population.view();
+    int k = 0;
+    for (int i = 0, n = view.slots(); i < n; i++) {
+      Immortal im = view.get(i);
+      if (im == null) continue;
+      if (k < ids.length) {
+        ids[k] = im.id;
+        health[k] = im.getHealth();
+        wins[k] = im.wins();
+        alive[k] = im.isAlive();
+      }
+      k++;
+    }
+    return k;
+  }
+
+  private int copyWins(int[] ids, long[] wins) {
+    if (arrays != null) return arrays.copyWins(ids, wins);
+    var view = population.view();
+    int k = 0;
+    for (int i = 0, n = view.slots(); i < n; i++) {
+      Immortal im = view.get(i);
+      if (im == null) continue;
+      if (k < ids.length) {
+        ids[k] = im.id;
+        wins[k] = im.wins();
       }
+      k++;
     }
-    population.removeAll(toRemove);
+    return k;
   }
 
   public List<Immortal> populationSnapshot() {
-    return Collections.unmodifiableList(new ArrayList<>(population));
+    if (arrays != null) return arrays.populationSnapshot();
+    return Collections.unmodifiableList(population.snapshot());
+  }
+
+  /** Estrategia de pelea del motor "threads"; "arrays" siempre pelea con CAS y "actors" con mensajes. */
+  public FightStrategy fightStrategy() {
+    return fight;
+  }
+
+  /**
+   * Escribe el estado de la simulacion en formato Prometheus. Solo lee
+   * contadores LongAdder y volatiles y recorre la poblacion sin locks, asi que
+   * no pausa ni bloquea a los inmortales.
+   */
+  public void writeMetrics(PrometheusText out) {
+    ScoreBoard.Snapshot score = scoreBoard.snapshot();
+    long now = System.nanoTime();
+    long[] previous = lastScrape.getAndSet(new long[]{now, score.fights()});
+    double seconds = (now - previous[0]) / 1e9;
+    out.gauge("immortals_alive", "Immortals with health above zero", aliveCount());
+    out.gauge("immortals_total_health", "Sum of the health of every immortal", totalHealth());
+    out.counter("immortals_fights_total", "Completed fights", score.fights());
+    out.gauge("immortals_fights_per_second", "Fight rate since the previous scrape",
+            seconds > 0 ? (score.fights() - previous[1]) / seconds : 0);
+    out.counter("immortals_kills_total", "Fights that killed the defender", score.kills());
+    out.counter("immortals_damage_total", "Health taken from defenders", score.damageDealt());
+    out.counter("immortals_health_gained_total", "Health gained by attackers", score.healthGained());
+    out.gauge("immortals_running", "1 while the simulation runs", running ? 1 : 0);
+    out.gauge("immortals_paused", "1 while a pause is requested", controller.paused() ? 1 : 0);
+    out.gauge("immortals_threads_parked", "Threads parked in awaitIfPaused", controller.parkedCount());
+    out.gauge("immortals_threads_registered", "Threads registered with the pause controller",
+            controller.runningCount());
+    if (arrays == null && arenas.length > 1) {
+      out.type("immortals_arena_alive", "gauge", "Immortals in each arena's alive index");
+      for (Arena a : arenas) out.sample("immortals_arena_alive", "arena=\"" + a.id + "\"", a.alive.size());
+      out.type("immortals_arena_fights_total", "counter", "Fights started by immortals of each arena");
+      for (Arena a : arenas) out.sample("immortals_arena_fights_total", "arena=\"" + a.id + "\"", a.score.totalFights());
+      out.type("immortals_arena_migrations_total", "counter", "Immortals that moved into each arena");
+      for (Arena a : arenas) out.sample("immortals_arena_migrations_total", "arena=\"" + a.id + "\"", a.migrationsIn.sum());
+    }
+    out.summary("immortals_pause_quiesce_seconds", "Time until every thread parked after pause()",
+            controller.quiesceLatency().snapshot());
+    AdaptiveBackoff.Stats retries = backoff.stats();
+    out.counter("immortals_fight_retries_total", "Fights retried after contention", retries.retries());
+    out.counter("immortals_fight_wasted_seconds_total", "Time lost to contention and backoff",
+            retries.wastedNanos() / 1e9);
+  }
+
+  /** Espera adaptativa compartida por todos los inmortales (reintentos, tiempo perdido, latencia de exito). */
+  public AdaptiveBackoff backoff() {
+    return backoff;
+  }
+
+  /**
+   * Serie de tiempo que llena un hilo muestreador cada {@code -Dtelemetry.ms}
+   * (250 por defecto) mientras la simulacion corre; guarda las ultimas
+   * {@code -Dtelemetry.samples} muestras (1200 por defecto).
+   */
+  public TelemetryRing telemetry() {
+    return telemetry.ring();
+  }
+
+  /** Las ultimas {@code max} muestras de {@link #telemetry()}, de la mas vieja a la mas nueva. */
+  public TelemetryRing.Series telemetry(int max) {
+    return telemetry.ring().snapshot(max);
+  }
+
+  /** Periodo del muestreador de telemetria. */
+  public Duration telemetryPeriod() {
+    return Duration.ofNanos(telemetry.periodNanos());
+  }
+
+  /** Cantidad de arenas (1 si no se particiona o con el motor "arrays"). */
+  public int arenaCount() {
+    return arrays != null ? 1 : arenas.length;
+  }
+
+  /**
+   * Vivos, peleas y mudanzas de cada arena, leidos sin pausar. La suma de las
+   * peleas es {@code scoreBoard().totalFights()}; la de los vivos puede
+   * diferir un poco de {@link #aliveCount()} mientras alguien se muda o los
+   * muertos esperan a salir del indice.
+   */
+  public List<ArenaStatus> arenaStatus() {
+    if (arrays != null) return List.of(new ArenaStatus(0, arrays.aliveCount(), scoreBoard.totalFights(), 0));
+    List<ArenaStatus> out = new ArrayList<>(arenas.length);
+    for (Arena a : arenas) out.add(new ArenaStatus(a.id, a.alive.size(), a.score.totalFights(), a.migrationsIn.sum()));
+    return out;
   }
 
   public ScoreBoard scoreBoard() {
@@ -129,9 +533,17 @@ public final class ImmortalManager implements AutoCloseable {
   @Override
   public void close() {
     stop();
+    if (log != null) {
+      try {
+        log.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
   }
 
   public boolean isRunning() {
+    if (arrays != null) return running && arrays.isRunning();
     return running && exec != null && !exec.isShutdown();
   }
 }
\ No newline at end of file
@@ -0,0 +1,4 @@
+package edu.eci.arsw.immortals;
+
+/** Estado de un inmortal en un instante, sin referencias vivas a la simulacion (para vistas y reportes). */
+public record ImmortalStatus(String name, int health, long wins, boolean alive) {}
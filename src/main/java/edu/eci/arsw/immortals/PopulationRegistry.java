@@ -0,0 +1,202 @@
+package edu.eci.arsw.immortals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Poblacion formada por segmentos de tamano fijo. Agregar llena el ultimo
+ * segmento (o encadena uno nuevo) y quitar deja un hueco (null) en la posicion
+ * del inmortal, sin mover a nadie. Cuando los huecos superan a los vivos se
+ * compacta bajo el lock en segmentos nuevos, sin tocar los anteriores.
+ *
+ * <p>Las escrituras se serializan con un lock; las lecturas toman una
+ * {@link View} (segmentos y cantidad de posiciones publicados juntos) y no
+ * toman ninguno. Como dentro de una vista nadie cambia de posicion, quien la
+ * recorre ve exactamente una vez a cada inmortal que estuvo durante todo el
+ * recorrido; los que se quitan o agregan mientras tanto pueden verse o no.
+ */
+public final class PopulationRegistry implements Iterable<Immortal> {
+  private static final int SEGMENT_SHIFT = 10;
+  private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  /** Segmentos y posiciones usadas en un instante; las posiciones vacias valen null. */
+  public static final class View {
+    private final AtomicReferenceArray<AtomicReferenceArray<Immortal>> segments;
+    private final int slots;
+
+    private View(AtomicReferenceArray<AtomicReferenceArray<Immortal>> segments, int slots) {
+      this.segments = segments;
+      this.slots = slots;
+    }
+
+    /** Posiciones de la vista, incluidos los huecos. */
+    public int slots() {
+      return slots;
+    }
+
+    /** El inmortal en la posicion i, o null si esta vacia. */
+    public Immortal get(int i) {
+      if (i < 0 || i >= slots) return null;
+      return segments.getAcquire(i >>> SEGMENT_SHIFT).getAcquire(i & SEGMENT_MASK);
+    }
+  }
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private volatile View view = new View(new AtomicReferenceArray<>(4), 0);
+  private volatile int size = 0;
+
+  public void add(Immortal im) {
+    lock.lock();
+    try {
+      if (im.registrySlot >= 0) return;
+      View v = view;
+      int slot = v.slots;
+      var dir = v.segments;
+      int s = slot >>> SEGMENT_SHIFT;
+      if (s == dir.length()) {
+        // El directorio viejo no cambia: las vistas anteriores lo siguen leyendo.
+        var grown = new AtomicReferenceArray<AtomicReferenceArray<Immortal>>(dir.length() * 2);
+        for (int i = 0; i < dir.length(); i++) grown.setPlain(i, dir.getPlain(i));
+        dir = grown;
+      }
+      var seg = dir.getPlain(s);
+      if (seg == null) {
+        seg = new AtomicReferenceArray<>(SEGMENT_SIZE);
+        dir.setPlain(s, seg);
+      }
+      seg.setPlain(slot & SEGMENT_MASK, im);
+      im.registrySlot = slot;
+      view = new View(dir, slot + 1);
+      size++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public boolean remove(Immortal im) {
+    lock.lock();
+    try {
+      boolean removed = removeLocked(im);
+      compactIfSparse();
+      return removed;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Quita en una sola pasada todos los que cumplen el predicado; devuelve cuantos. */
+  public int removeIf(Predicate<Immortal> filter) {
+    lock.lock();
+    try {
+      int removed = 0;
+      View v = view;
+      for (int i = 0; i < v.slots; i++) {
+        Immortal im = v.get(i);
+        if (im != null && filter.test(im) && removeLocked(im)) removed++;
+      }
+      compactIfSparse();
+      return removed;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void clear() {
+    lock.lock();
+    try {
+      View v = view;
+      for (int i = 0; i < v.slots; i++) {
+        Immortal im = v.get(i);
+        if (im != null) im.registrySlot = -1;
+      }
+      view = new View(new AtomicReferenceArray<>(4), 0);
+      size = 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** La vista actual; recorrerla por indice no asigna memoria. */
+  public View view() {
+    return view;
+  }
+
+  /** Inmortales registrados (sin contar huecos). */
+  public int size() {
+    return size;
+  }
+
+  public List<Immortal> snapshot() {
+    View v = view;
+    List<Immortal> copy = new ArrayList<>(Math.min(v.slots, size));
+    for (int i = 0; i < v.slots; i++) {
+      Immortal im = v.get(i);
+      if (im != null) copy.add(im);
+    }
+    return copy;
+  }
+
+  @Override
+  public Iterator<Immortal> iterator() {
+    View v = view;
+    return new Iterator<>() {
+      private int next = 0;
+      private Immortal pending = advance();
+
+      private Immortal advance() {
+        while (next < v.slots) {
+          Immortal im = v.get(next++);
+          if (im != null) return im;
+        }
+        return null;
+      }
+
+      @Override public boolean hasNext() { return pending != null; }
+
+      @Override public Immortal next() {
+        if (pending == null) throw new NoSuchElementException();
+        Immortal current = pending;
+        pending = advance();
+        return current;
+      }
+    };
+  }
+
+  private boolean removeLocked(Immortal im) {
+    int i = im.registrySlot;
+    if (i < 0) return false;
+    view.segments.getPlain(i >>> SEGMENT_SHIFT).setRelease(i & SEGMENT_MASK, null);
+    im.registrySlot = -1;
+    size--;
+    return true;
+  }
+
+  /** Con mas huecos que vivos, copia los vivos en orden a segmentos nuevos y publica otra vista. */
+  private void compactIfSparse() {
+    View v = view;
+    int holes = v.slots - size;
+    if (holes < SEGMENT_SIZE || holes <= size) return;
+    int dirLength = 4;
+    while (dirLength * SEGMENT_SIZE < size) dirLength *= 2;
+    var dir = new AtomicReferenceArray<AtomicReferenceArray<Immortal>>(dirLength);
+    int slot = 0;
+    for (int i = 0; i < v.slots; i++) {
+      Immortal im = v.get(i);
+      if (im == null) continue;
+      var seg = dir.getPlain(slot >>> SEGMENT_SHIFT);
+      if (seg == null) {
+        seg = new AtomicReferenceArray<>(SEGMENT_SIZE);
+        dir.setPlain(slot >>> SEGMENT_SHIFT, seg);
+      }
+      seg.setPlain(slot & SEGMENT_MASK, im);
+      im.registrySlot = slot++;
+    }
+    view = new View(dir, slot);
+  }
+}
@@ -1,9 +1,197 @@
 package edu.eci.arsw.immortals;
 
-import java.util.concurrent.atomic.AtomicLong;
+import edu.eci.arsw.metrics.LatencyHistogram;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Contadores globales de la simulacion. Cada uno es un {@link LongAdder}, asi
+ * que los hilos que pelean escriben en celdas distintas y no compiten por la
+ * misma linea de cache. Las victorias por inmortal se escriben en el propio
+ * {@link Immortal} (o en su indice del motor "arrays") porque solo las escribe
+ * su hilo; {@link #snapshot()} las copia junto con los totales.
+ *
+ * <p>Con {@link #stripe()} se crean tableros hijos (uno por {@link Arena}) que
+ * escriben en contadores propios; los totales de este tablero los incluyen.
+ */
 public final class ScoreBoard {
-  private final AtomicLong totalFights = new AtomicLong();
-  public void recordFight() { totalFights.incrementAndGet(); }
-  public long totalFights() { return totalFights.get(); }
+  private final LongAdder totalFights = new LongAdder();
+  private final LongAdder kills = new LongAdder();
+  private final LongAdder damageDealt = new LongAdder();
+  private final LongAdder healthGained = new LongAdder();
+  private final ScoreBoard root;
+  private final LatencyHistogram fightLatency;
+  private volatile boolean timingFights = false;
+  private volatile ScoreBoard[] stripes = new ScoreBoard[0];
+  private volatile WinSource wins;
+
+  /** Copia ids y victorias de la poblacion; misma convencion que {@link ImmortalManager#copyStatus}. */
+  interface WinSource {
+    int copyWins(int[] ids, long[] wins);
+  }
+
+  public ScoreBoard() {
+    this.root = this;
+    this.fightLatency = new LatencyHistogram();
+  }
+
+  private ScoreBoard(ScoreBoard root) {
+    this.root = root;
+    this.fightLatency = root.fightLatency;
+  }
+
+  /**
+   * Tablero hijo con contadores propios que suman en los totales de este; la
+   * medicion de latencia se comparte. Pensado para crearse al armar la
+   * simulacion, no durante.
+   */
+  public synchronized ScoreBoard stripe() {
+    if (root != this) return root.stripe();
+    var child = new ScoreBoard(this);
+    var grown = Arrays.copyOf(stripes, stripes.length + 1);
+    grown[grown.length - 1] = child;
+    stripes = grown;
+    return child;
+  }
+
+  /** Lo registra el manager para que {@link #snapshot()} incluya las victorias por inmortal. */
+  void trackWins(WinSource source) { root.wins = source; }
+
+  public void recordFight() { totalFights.increment(); }
+
+  public void recordFight(int damage, int gained, boolean killed) {
+    totalFights.increment();
+    damageDealt.add(damage);
+    healthGained.add(gained);
+    if (killed) kills.increment();
+  }
+
+  /** Salud que un atacante suma despues, al recibir la respuesta de la pelea (modo actor). */
+  public void recordGain(int gained) { healthGained.add(gained); }
+
+  /** Si se activa, cada intento de pelea (locks incluidos) se mide en {@link #fightLatency()}. */
+  public void timeFights(boolean enabled) { root.timingFights = enabled; }
+  public boolean timingFights() { return root.timingFights; }
+  public void recordFightLatency(long nanos) { fightLatency.record(nanos); }
+  public LatencyHistogram fightLatency() { return fightLatency; }
+
+  public long totalFights() {
+    long n = totalFights.sum();
+    for (ScoreBoard s : stripes) n += s.totalFights.sum();
+    return n;
+  }
+
+  public long kills() {
+    long n = kills.sum();
+    for (ScoreBoard s : stripes) n += s.kills.sum();
+    return n;
+  }
+
+  public long damageDealt() {
+    long n = damageDealt.sum();
+    for (ScoreBoard s : stripes) n += s.damageDealt.sum();
+    return n;
+  }
+
+  public long healthGained() {
+    long n = healthGained.sum();
+    for (ScoreBoard s : stripes) n += s.healthGained.sum();
+    return n;
+  }
+
+  /** Suma contadores en bloque: al restaurar un checkpoint y al cerrar cada ronda del motor "rounds". */
+  void add(Snapshot s) {
+    totalFights.add(s.fights());
+    kills.add(s.kills());
+    damageDealt.add(s.damageDealt());
+    healthGained.add(s.healthGained());
+  }
+
+  /**
+   * Lectura de todos los contadores (franjas incluidas) y de las victorias por
+   * inmortal en un solo objeto; no es atomica entre contadores, asi que con la
+   * simulacion corriendo solo cuadran si antes se pausa.
+   */
+  public Snapshot snapshot() {
+    return new Snapshot(totalFights(), kills(), damageDealt(), healthGained(), winsSnapshot());
+  }
+
+  private Wins winsSnapshot() {
+    WinSource source = root.wins;
+    if (source == null) return Wins.NONE;
+    int capacity = 64;
+    while (true) {
+      int[] ids = new int[capacity];
+      long[] counts = new long[capacity];
+      int n = source.copyWins(ids, counts);
+      if (n <= capacity) return new Wins(n, ids, counts);
+      capacity = n + n / 8;
+    }
+  }
+
+  /**
+   * @param damageDealt  salud quitada a los defensores (= dano recibido)
+   * @param healthGained salud sumada a los atacantes
+   */
+  public record Snapshot(long fights, long kills, long damageDealt, long healthGained, Wins wins) {
+    /** Solo totales, sin victorias por inmortal: checkpoints, rondas y replay del log. */
+    public Snapshot(long fights, long kills, long damageDealt, long healthGained) {
+      this(fights, kills, damageDealt, healthGained, Wins.NONE);
+    }
+
+    /** Lo que la poblacion perdio en total; la salud esperada es la inicial menos esto. */
+    public long healthLost() { return damageDealt - healthGained; }
+  }
+
+  /**
+   * Victorias de cada inmortal presente, en el orden de la poblacion, en dos
+   * arreglos primitivos. Los muertos que ya se quitaron no aparecen, asi que
+   * {@link #total()} puede quedar por debajo de las peleas.
+   */
+  public static final class Wins {
+    public static final Wins NONE = new Wins(0, new int[0], new long[0]);
+
+    private final int size;
+    private final int[] ids;
+    private final long[] counts;
+
+    private Wins(int size, int[] ids, long[] counts) {
+      this.size = size;
+      this.ids = ids;
+      this.counts = counts;
+    }
+
+    public int size() { return size; }
+    public int id(int i) { return ids[Objects.checkIndex(i, size)]; }
+    public long count(int i) { return counts[Objects.checkIndex(i, size)]; }
+
+    public long total() {
+      long sum = 0;
+      for (int i = 0; i < size; i++) sum += counts[i];
+      return sum;
+    }
+
+    /** Posicion del inmortal con mas victorias, o -1 si no hay ninguno. */
+    public int best() {
+      int best = -1;
+      for (int i = 0; i < size; i++) {
+        if (best < 0 || counts[i] > counts[best]) best = i;
+      }
+      return best;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Wins w && Arrays.equals(ids, 0, size, w.ids, 0, w.size)
+              && Arrays.equals(counts, 0, size, w.counts, 0, w.size);
+    }
+
+    @Override
+    public int hashCode() {
+      int h = size;
+      for (int i = 0; i < size; i++) h = 31 * h + ids[i] * 17 + Long.hashCode(counts[i]);
+      return h;
+    }
+  }
 }
@@ -0,0 +1,72 @@
+package edu.eci.arsw.immortals;
+
+import edu.eci.arsw.concurrency.PauseResult;
+import edu.eci.arsw.metrics.TelemetryRing;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Muestrea la simulacion cada {@code period} en un hilo programado y guarda
+ * peleas/s, vivos, salud total y latencia de pausa en un {@link TelemetryRing}.
+ * No pausa a nadie y {@link #sample()} no asigna memoria: solo lee LongAdders,
+ * volatiles y recorre la poblacion por indice.
+ */
+final class TelemetrySampler {
+  private final ImmortalManager manager;
+  private final TelemetryRing ring;
+  private final long periodNanos;
+  private ScheduledExecutorService timer;
+  private long lastTime;
+  private long lastFights;
+  private PauseResult lastPause;
+
+  TelemetrySampler(ImmortalManager manager, Duration period, int capacity) {
+    this.manager = manager;
+    this.ring = new TelemetryRing(capacity);
+    this.periodNanos = Math.max(1, period.toNanos());
+  }
+
+  synchronized void start() {
+    if (timer != null) return;
+    lastTime = System.nanoTime();
+    lastFights = manager.scoreBoard().totalFights();
+    lastPause = manager.controller().lastPause();
+    timer = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "telemetry-sampler");
+      t.setDaemon(true);
+      return t;
+    });
+    timer.scheduleAtFixedRate(this::sample, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+  }
+
+  synchronized void stop() {
+    if (timer == null) return;
+    timer.shutdownNow();
+    timer = null;
+  }
+
+  /** Una muestra; solo desde el hilo del temporizador (o un test, con el temporizador detenido). */
+  void sample() {
+    long now = System.nanoTime();
+    long fights = manager.scoreBoard().totalFights();
+    double seconds = (now - lastTime) / 1e9;
+    // Solo se reporta la pausa si hubo una nueva desde la muestra anterior.
+    PauseResult pause = manager.controller().lastPause();
+    long pauseNanos = pause != null && pause != lastPause ? pause.quiesceNanos() : 0;
+    ring.append(now, seconds > 0 ? (fights - lastFights) / seconds : 0,
+            manager.aliveCount(), manager.totalHealth(), pauseNanos);
+    lastTime = now;
+    lastFights = fights;
+    lastPause = pause;
+  }
+
+  TelemetryRing ring() {
+    return ring;
+  }
+
+  long periodNanos() {
+    return periodNanos;
+  }
+}
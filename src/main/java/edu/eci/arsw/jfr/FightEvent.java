@@ -0,0 +1,39 @@
+package edu.eci.arsw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Una pelea completa: desde que el atacante intenta tomar los recursos hasta que los suelta. */
+@Name("edu.eci.arsw.Fight")
+@Label("Fight")
+@Category({"Immortals", "Fights"})
+@Description("Fight between two immortals, including the time spent acquiring both participants")
+@StackTrace(false)
+public final class FightEvent extends Event {
+  @Label("Attacker")
+  public String attacker;
+
+  @Label("Defender")
+  public String defender;
+
+  @Label("Strategy")
+  public String strategy;
+
+  /** "hit", "killed", "abandoned" (contencion) o "skipped" (alguno ya estaba muerto). */
+  @Label("Outcome")
+  public String outcome;
+
+  /** Completa y confirma el evento solo si la grabacion lo pide (habilitado y sobre el umbral). */
+  public void commit(String attacker, String defender, String strategy, String outcome) {
+    if (!shouldCommit()) return;
+    this.attacker = attacker;
+    this.defender = defender;
+    this.strategy = strategy;
+    this.outcome = outcome;
+    commit();
+  }
+}
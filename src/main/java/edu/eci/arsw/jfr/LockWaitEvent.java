@@ -0,0 +1,49 @@
+package edu.eci.arsw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Espera para tomar los dos locks de una pelea o transferencia; cubre tambien los intentos fallidos. */
+@Name("edu.eci.arsw.LockWait")
+@Label("Lock Wait")
+@Category({"Immortals", "Locks"})
+@Description("Time spent acquiring the pair of locks guarding a fight or a transfer")
+@StackTrace(false)
+public final class LockWaitEvent extends Event {
+  /** "monitor", "lock", "trylock", "stamped" o "account". */
+  @Label("Lock Kind")
+  public String kind;
+
+  @Label("First")
+  public String first;
+
+  @Label("Second")
+  public String second;
+
+  @Label("Acquired")
+  public boolean acquired;
+
+  @Label("Attempts")
+  public int attempts;
+
+  /** Completa y confirma el evento solo si la grabacion lo pide (habilitado y sobre el umbral). */
+  public void commit(String kind, String first, String second, boolean acquired, int attempts) {
+    if (!shouldCommit()) return;
+    this.kind = kind;
+    this.first = first;
+    this.second = second;
+    this.acquired = acquired;
+    this.attempts = attempts;
+    commit();
+  }
+
+  /** Igual que el anterior para cuentas identificadas por numero; el texto solo se arma si se confirma. */
+  public void commit(String kind, long first, long second, boolean acquired, int attempts) {
+    if (!shouldCommit()) return;
+    commit(kind, "account-" + first, "account-" + second, acquired, attempts);
+  }
+}
@@ -0,0 +1,31 @@
+package edu.eci.arsw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Un {@code PauseController.pause}: la duracion es el tiempo hasta detener a todos (o hasta el timeout). */
+@Name("edu.eci.arsw.Pause")
+@Label("Pause")
+@Category({"Immortals", "Pause"})
+@Description("Time until every registered thread parked after a pause request")
+public final class PauseEvent extends Event {
+  @Label("Parked")
+  public int parked;
+
+  @Label("Running")
+  public int running;
+
+  @Label("Quiesced")
+  public boolean quiesced;
+
+  public void commit(int parked, int running, boolean quiesced) {
+    if (!shouldCommit()) return;
+    this.parked = parked;
+    this.running = running;
+    this.quiesced = quiesced;
+    commit();
+  }
+}
@@ -0,0 +1,26 @@
+package edu.eci.arsw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Tiempo que un hilo estuvo detenido en {@code awaitIfPaused}; solo se emite si de verdad espero. */
+@Name("edu.eci.arsw.PauseWait")
+@Label("Pause Wait")
+@Category({"Immortals", "Pause"})
+@Description("Time a worker thread spent parked in awaitIfPaused")
+@StackTrace(false)
+public final class PauseWaitEvent extends Event {
+  @Label("Shutdown")
+  @Description("The wait ended because the controller shut down")
+  public boolean shutdown;
+
+  public void commit(boolean shutdown) {
+    if (!shouldCommit()) return;
+    this.shutdown = shutdown;
+    commit();
+  }
+}
@@ -0,0 +1,50 @@
+package edu.eci.arsw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Una llamada a {@code TransferService}; en los lotes {@code from}/{@code to} quedan en -1 y {@code amount} es la suma. */
+@Name("edu.eci.arsw.Transfer")
+@Label("Transfer")
+@Category({"Immortals", "Transfers"})
+@Description("A TransferService call, including lock acquisition and retries")
+public final class TransferEvent extends Event {
+  /** "naive", "ordered", "tryLock", "batch", "ledgerOrdered" o "ledgerTryLock". */
+  @Label("Method")
+  public String method;
+
+  @Label("From")
+  public long from;
+
+  @Label("To")
+  public long to;
+
+  @Label("Amount")
+  public long amount;
+
+  @Label("Transfers")
+  public int transfers;
+
+  @Label("Applied")
+  public int applied;
+
+  /** "applied", "insufficientFunds", "timedOut" o, en lotes con rechazos, "partial". */
+  @Label("Outcome")
+  public String outcome;
+
+  /** Completa y confirma el evento solo si la grabacion lo pide (habilitado y sobre el umbral). */
+  public void commit(String method, long from, long to, long amount, int transfers, int applied, String outcome) {
+    if (!shouldCommit()) return;
+    this.method = method;
+    this.from = from;
+    this.to = to;
+    this.amount = amount;
+    this.transfers = transfers;
+    this.applied = applied;
+    this.outcome = outcome;
+    commit();
+  }
+}
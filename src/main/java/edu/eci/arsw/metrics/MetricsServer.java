@@ -0,0 +1,98 @@
+package edu.eci.arsw.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Endpoint HTTP local ({@code GET /metrics}) en formato Prometheus, hecho con
+ * el {@code HttpServer} del JDK. Cada fuente registrada escribe sus metricas
+ * en cada scrape; las fuentes deben leer solo contadores sin locks (LongAdder,
+ * volatiles) para que un scrape nunca frene ni pause la simulacion.
+ *
+ * <p>Registrar con un nombre ya usado reemplaza la fuente: asi una simulacion
+ * nueva toma el lugar de la anterior. Al detenerse, cada simulacion quita su
+ * propia fuente.
+ */
+public final class MetricsServer implements AutoCloseable {
+  private static volatile MetricsServer global;
+
+  private final HttpServer server;
+  private final Map<String, Consumer<PrometheusText>> sources = new ConcurrentHashMap<>();
+
+  private MetricsServer(HttpServer server) {
+    this.server = server;
+    server.createContext("/metrics", this::handle);
+  }
+
+  /** Escucha en {@code address} (puerto 0 = uno libre). */
+  public static MetricsServer start(InetSocketAddress address) throws IOException {
+    var metrics = new MetricsServer(HttpServer.create(address, 0));
+    metrics.server.start();
+    return metrics;
+  }
+
+  /** Arranca el servidor del proceso al que se registran solas las simulaciones (ver {@link #global()}). */
+  public static synchronized MetricsServer startGlobal(int port) throws IOException {
+    if (global == null) global = start(new InetSocketAddress("127.0.0.1", port));
+    return global;
+  }
+
+  /** El servidor de {@link #startGlobal}, o null si no se pidio. */
+  public static MetricsServer global() {
+    return global;
+  }
+
+  public void register(String name, Consumer<PrometheusText> source) {
+    sources.put(name, source);
+  }
+
+  public void unregister(String name) {
+    sources.remove(name);
+  }
+
+  /** Quita {@code name} solo si sigue apuntando a {@code source}: no borra a quien ya lo reemplazo. */
+  public void unregister(String name, Consumer<PrometheusText> source) {
+    sources.remove(name, source);
+  }
+
+  public int port() {
+    return server.getAddress().getPort();
+  }
+
+  /** El texto que devolveria un scrape ahora. */
+  public String scrape() {
+    var out = new PrometheusText();
+    for (Consumer<PrometheusText> source : sources.values()) source.accept(out);
+    return out.toString();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream os = exchange.getResponseBody()) {
+        os.write(body);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    synchronized (MetricsServer.class) {
+      if (global == this) global = null;
+    }
+  }
+}
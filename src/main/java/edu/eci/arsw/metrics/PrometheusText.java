@@ -0,0 +1,52 @@
+package edu.eci.arsw.metrics;
+
+import java.util.Locale;
+
+/**
+ * Arma una respuesta en el formato de texto de Prometheus (0.0.4): una linea
+ * {@code # HELP}/{@code # TYPE} por metrica y una linea por muestra.
+ */
+public final class PrometheusText {
+  private final StringBuilder out = new StringBuilder(1024);
+
+  public PrometheusText type(String name, String type, String help) {
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    return this;
+  }
+
+  /** {@code labels} ya formateadas ({@code a="x",b="y"}) o vacias. */
+  public PrometheusText sample(String name, String labels, double value) {
+    out.append(name);
+    if (!labels.isEmpty()) out.append('{').append(labels).append('}');
+    out.append(' ');
+    if (value == Math.rint(value) && Math.abs(value) < 1e15) out.append((long) value);
+    else out.append(String.format(Locale.ROOT, "%.9g", value));
+    out.append('\n');
+    return this;
+  }
+
+  public PrometheusText counter(String name, String help, double value) {
+    return type(name, "counter", help).sample(name, "", value);
+  }
+
+  public PrometheusText gauge(String name, String help, double value) {
+    return type(name, "gauge", help).sample(name, "", value);
+  }
+
+  /** Un histograma de nanosegundos como {@code summary} en segundos. */
+  public PrometheusText summary(String name, String help, LatencyHistogram.Snapshot s) {
+    type(name, "summary", help);
+    sample(name, "quantile=\"0.5\"", s.p50() / 1e9);
+    sample(name, "quantile=\"0.9\"", s.p90() / 1e9);
+    sample(name, "quantile=\"0.99\"", s.p99() / 1e9);
+    sample(name, "quantile=\"0.999\"", s.p999() / 1e9);
+    sample(name + "_sum", "", s.mean() * s.count() / 1e9);
+    return sample(name + "_count", "", s.count());
+  }
+
+  @Override
+  public String toString() {
+    return out.toString();
+  }
+}
@@ -0,0 +1,85 @@
+package edu.eci.arsw.metrics;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Serie de tiempo de tamanio fijo: una columna primitiva por medida y un
+ * contador de muestras publicado con escritura volatile. Un solo hilo escribe
+ * ({@link #append} no asigna memoria); los lectores copian con
+ * {@link #snapshot} y reintentan si el escritor dio la vuelta mientras copiaban.
+ * Hay un espacio de mas que nunca se devuelve: es el que el escritor puede
+ * estar pisando mientras {@code written} todavia no avanzo.
+ */
+public final class TelemetryRing {
+  private final long[] timeNanos;
+  private final double[] fightsPerSec;
+  private final int[] alive;
+  private final long[] totalHealth;
+  private final long[] pauseNanos;
+  private final int capacity;
+  private volatile long written = 0;
+
+  /** Muestras copiadas de la mas vieja a la mas nueva. */
+  public record Series(long[] timeNanos, double[] fightsPerSec, int[] alive, long[] totalHealth, long[] pauseNanos) {
+    public int size() { return timeNanos.length; }
+  }
+
+  public TelemetryRing(int capacity) {
+    if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+    this.capacity = capacity;
+    int slots = capacity + 1;
+    timeNanos = new long[slots];
+    fightsPerSec = new double[slots];
+    alive = new int[slots];
+    totalHealth = new long[slots];
+    pauseNanos = new long[slots];
+  }
+
+  /** Solo desde el hilo muestreador. */
+  public void append(long time, double fightsRate, int aliveCount, long health, long pause) {
+    long n = written;
+    int i = (int) (n % timeNanos.length);
+    timeNanos[i] = time;
+    fightsPerSec[i] = fightsRate;
+    alive[i] = aliveCount;
+    totalHealth[i] = health;
+    pauseNanos[i] = pause;
+    written = n + 1;
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  /** Muestras disponibles (como mucho {@link #capacity()}). */
+  public int size() {
+    return (int) Math.min(written, capacity);
+  }
+
+  /** Total de muestras escritas desde el inicio. */
+  public long written() {
+    return written;
+  }
+
+  /** Las ultimas {@code max} muestras. */
+  public Series snapshot(int max) {
+    int slots = timeNanos.length;
+    while (true) {
+      long end = written;
+      int n = (int) Math.min(Math.min(end, capacity), max);
+      long start = end - n;
+      var s = new Series(new long[n], new double[n], new int[n], new long[n], new long[n]);
+      for (int k = 0; k < n; k++) {
+        int i = (int) ((start + k) % slots);
+        s.timeNanos[k] = timeNanos[i];
+        s.fightsPerSec[k] = fightsPerSec[i];
+        s.alive[k] = alive[i];
+        s.totalHealth[k] = totalHealth[i];
+        s.pauseNanos[k] = pauseNanos[i];
+      }
+      VarHandle.acquireFence(); // las copias no se mueven despues de releer written
+      // El escritor pisa el espacio de la muestra "written"; si ese ya es el de la mas vieja copiada, se reintenta.
+      if (written - start < slots) return s;
+    }
+  }
+}
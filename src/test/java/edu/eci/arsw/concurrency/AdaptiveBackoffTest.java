@@ -0,0 +1,56 @@
+package edu.eci.arsw.concurrency;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class AdaptiveBackoffTest {
+  @Test
+  void growsWithAttemptsAndContentionUpToMax() {
+    var backoff = new AdaptiveBackoff(Duration.ofNanos(1_000), Duration.ofNanos(64_000));
+    assertEquals(1_000, backoff.timeoutNanos(0));
+    assertEquals(8_000, backoff.timeoutNanos(3));
+    assertEquals(64_000, backoff.timeoutNanos(40));
+    for (int i = 0; i < 10; i++) {
+      long d = backoff.delayNanos(0);
+      assertTrue(d >= 500 && d <= 1_000, "jitter " + d);
+    }
+
+    for (int i = 0; i < 200; i++) backoff.onFailure(10);
+    assertTrue(backoff.failureRate() > 0.9);
+    assertEquals(16_000, backoff.timeoutNanos(0));
+
+    for (int i = 0; i < 200; i++) backoff.onSuccess(100);
+    assertTrue(backoff.failureRate() < 0.1);
+    assertEquals(1_000, backoff.timeoutNanos(0));
+  }
+
+  @Test
+  void countsRetriesWasteAndSuccessLatency() throws Exception {
+    var backoff = new AdaptiveBackoff(Duration.ofNanos(1_000), Duration.ofNanos(2_000));
+    backoff.onFailure(5_000);
+    backoff.pause(0);
+    backoff.onSuccess(20_000);
+    AdaptiveBackoff.Stats stats = backoff.stats();
+    assertEquals(1, stats.successes());
+    assertEquals(1, stats.failures());
+    assertEquals(1, stats.retries());
+    assertTrue(stats.wastedNanos() >= 5_500);
+    assertEquals(1, stats.successLatency().count());
+  }
+
+  @Test
+  void firstTrySuccessesOnlyCountAndDecay() {
+    var backoff = new AdaptiveBackoff(Duration.ofNanos(1_000), Duration.ofNanos(64_000));
+    for (int i = 0; i < 200; i++) backoff.onSuccess(100, 0);
+    assertEquals(200, backoff.stats().successes());
+    assertEquals(0, backoff.successLatency().count());
+
+    for (int i = 0; i < 200; i++) backoff.onFailure(10);
+    for (int i = 0; i < 200; i++) backoff.onSuccess(100, 0);
+    assertTrue(backoff.failureRate() < 0.1);
+    backoff.onSuccess(5_000, 2);
+    assertEquals(1, backoff.successLatency().count());
+  }
+}
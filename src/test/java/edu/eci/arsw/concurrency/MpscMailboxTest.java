@@ -0,0 +1,51 @@
+package edu.eci.arsw.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class MpscMailboxTest {
+  @Test
+  void reservedSlotsStayFreeForLaterOffers() {
+    var box = new MpscMailbox<String>(4);
+    assertTrue(box.offer("a", 0, 1, 1));
+    assertTrue(box.offer("a", 0, 2, 1));
+    assertTrue(box.offer("a", 0, 3, 1));
+    assertFalse(box.offer("a", 0, 4, 1));
+    assertTrue(box.offer("b", 1, 5, 0));
+    assertFalse(box.offer("b", 1, 6, 0));
+
+    List<Integer> values = new ArrayList<>();
+    assertEquals(4, box.drain((from, kind, value) -> values.add(value)));
+    assertEquals(List.of(1, 2, 3, 5), values);
+    assertTrue(box.isEmpty());
+  }
+
+  @Test
+  void producersNeverLoseOrReorderTheirOwnMessages() throws Exception {
+    int producers = 4;
+    int perProducer = 20_000;
+    var box = new MpscMailbox<Integer>(64);
+    Thread[] threads = new Thread[producers];
+    for (int p = 0; p < producers; p++) {
+      int id = p;
+      threads[p] = Thread.ofPlatform().start(() -> {
+        for (int i = 0; i < perProducer; i++) {
+          while (!box.offer(id, 0, i, 0)) Thread.yield();
+        }
+      });
+    }
+    int[] next = new int[producers];
+    int received = 0;
+    while (received < producers * perProducer) {
+      int n = box.drain((from, kind, value) -> assertEquals(next[from]++, value));
+      if (n == 0) Thread.yield();
+      received += n;
+    }
+    for (Thread t : threads) t.join();
+    for (int n : next) assertEquals(perProducer, n);
+  }
+}
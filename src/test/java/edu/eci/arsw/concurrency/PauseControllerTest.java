@@ -0,0 +1,55 @@
+package edu.eci.arsw.concurrency;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class PauseControllerTest {
+  @Test
+  void pauseReportsParkedThreadsAndLatency() throws Exception {
+    var controller = new PauseController();
+    var progress = new AtomicLong();
+    int threads = 50;
+    var started = new CountDownLatch(threads);
+    try (var exec = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < threads; i++) {
+        exec.submit(() -> {
+          controller.registerThread();
+          started.countDown();
+          try {
+            while (!Thread.currentThread().isInterrupted()) {
+              controller.awaitIfPaused();
+              progress.incrementAndGet();
+              Thread.sleep(1);
+            }
+          } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+          } finally {
+            controller.unregisterThread();
+          }
+          return null;
+        });
+      }
+      started.await();
+
+      PauseResult result = controller.pause();
+      assertTrue(result.quiesced());
+      assertEquals(threads, result.parked());
+      assertEquals(threads, result.running());
+      long frozen = progress.get();
+      Thread.sleep(50);
+      assertEquals(frozen, progress.get());
+      assertEquals(1, controller.quiesceLatency().count());
+
+      controller.resume();
+      Thread.sleep(50);
+      assertTrue(progress.get() > frozen);
+      assertEquals(0, controller.parkedCount());
+      controller.shutdown();
+      exec.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package edu.eci.arsw.core;
+
+import edu.eci.arsw.concurrency.AdaptiveBackoff;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TransferServiceTest {
+  @Test
+  void batchRejectsOnlyUnfundedTransfers() {
+    var a = new BankAccount(1, 10);
+    var b = new BankAccount(2, 0);
+    var c = new BankAccount(3, 5);
+    var d = new BankAccount(4, 0);
+    BatchResult r = TransferService.transferBatch(List.of(
+            new Transfer(a, b, 8),
+            new Transfer(a, b, 8),
+            new Transfer(b, a, 3),
+            new Transfer(c, d, 5),
+            new Transfer(c, d, 1)));
+    assertEquals(List.of(BatchResult.Outcome.APPLIED, BatchResult.Outcome.INSUFFICIENT_FUNDS,
+            BatchResult.Outcome.APPLIED, BatchResult.Outcome.APPLIED, BatchResult.Outcome.INSUFFICIENT_FUNDS),
+            r.outcomes());
+    assertEquals(2, r.groups());
+    assertEquals(5, a.balance());
+    assertEquals(5, b.balance());
+    assertEquals(0, c.balance());
+    assertEquals(5, d.balance());
+  }
+
+  @Test
+  void concurrentBatchesConserveMoney() throws Exception {
+    int n = 16;
+    BankAccount[] bank = new BankAccount[n];
+    for (int i = 0; i < n; i++) bank[i] = new BankAccount(i, 100);
+    try (var exec = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int t = 0; t < 500; t++) {
+        exec.submit(() -> {
+          var rnd = ThreadLocalRandom.current();
+          List<Transfer> batch = new ArrayList<>();
+          for (int i = 0; i < 20; i++) {
+            batch.add(new Transfer(bank[rnd.nextInt(n)], bank[rnd.nextInt(n)], rnd.nextInt(1, 30)));
+          }
+          TransferService.transferBatch(batch);
+        });
+      }
+    }
+    long total = 0;
+    for (BankAccount acc : bank) total += acc.balance();
+    assertEquals(n * 100L, total);
+  }
+
+  @Test
+  void ledgerTransfersConserveMoney() throws Exception {
+    var ledger = new AccountLedger(10_000, 100, 64);
+    try (var exec = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int t = 0; t < 16; t++) {
+        exec.submit(() -> {
+          var rnd = ThreadLocalRandom.current();
+          for (int i = 0; i < 5_000; i++) {
+            try {
+              TransferService.transferOrdered(ledger, rnd.nextInt(10_000), rnd.nextInt(10_000), rnd.nextInt(1, 50));
+            } catch (IllegalArgumentException insufficient) {
+              // saldo insuficiente: la transferencia no se aplica
+            }
+          }
+        });
+      }
+    }
+    assertEquals(10_000L * 100, ledger.totalBalance());
+    assertEquals(10_000L * Long.BYTES, ledger.offHeapBytes());
+  }
+
+  @Test
+  void opposedTryLockTransfersBackOffAndFinish() throws Exception {
+    var a = new BankAccount(1, 1_000);
+    var b = new BankAccount(2, 1_000);
+    var backoff = new AdaptiveBackoff(Duration.ofNanos(20_000), Duration.ofMillis(2));
+    try (var exec = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int t = 0; t < 200; t++) {
+        boolean forward = t % 2 == 0;
+        exec.submit(() -> {
+          TransferService.transferTryLock(forward ? a : b, forward ? b : a, 1, Duration.ofSeconds(5), backoff);
+          return null;
+        });
+      }
+    }
+    assertEquals(2_000, a.balance() + b.balance());
+    assertEquals(200, backoff.stats().successes());
+  }
+
+  @Test
+  void optimisticTransactionIsAllOrNothing() {
+    var a = new BankAccount(1, 10);
+    var b = new BankAccount(2, 0);
+    var c = new BankAccount(3, 0);
+    assertThrows(IllegalArgumentException.class, () -> TransferService.transferOptimistic(
+            List.of(new Transfer(a, b, 6), new Transfer(b, c, 6), new Transfer(a, c, 6))));
+    assertEquals(10, a.balance());
+    assertEquals(0, b.balance() + c.balance());
+    TransferService.transferOptimistic(List.of(new Transfer(a, b, 6), new Transfer(b, c, 6), new Transfer(a, c, 4)));
+    assertEquals(0, a.balance());
+    assertEquals(0, b.balance());
+    assertEquals(10, c.balance());
+  }
+
+  @Test
+  void optimisticAndLockingTransfersConserveMoneyTogether() throws Exception {
+    int n = 4;
+    BankAccount[] bank = new BankAccount[n];
+    for (int i = 0; i < n; i++) bank[i] = new BankAccount(i, 1_000);
+    try (var exec = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int t = 0; t < 8; t++) {
+        int mode = t % 3;
+        exec.submit(() -> {
+          var rnd = ThreadLocalRandom.current();
+          for (int i = 0; i < 2_000; i++) {
+            BankAccount from = bank[rnd.nextInt(n)];
+            BankAccount to = bank[rnd.nextInt(n)];
+            BankAccount third = bank[rnd.nextInt(n)];
+            long amount = rnd.nextInt(1, 40);
+            try {
+              switch (mode) {
+                case 0 -> TransferService.transferOrdered(from, to, amount);
+                case 1 -> TransferService.transferOptimistic(from, to, amount);
+                default -> TransferService.transferOptimistic(
+                        List.of(new Transfer(from, to, amount), new Transfer(to, third, amount / 2)));
+              }
+            } catch (IllegalArgumentException insufficient) {
+              // saldo insuficiente: la transferencia no se aplica
+            }
+          }
+        });
+      }
+    }
+    long total = 0;
+    for (BankAccount acc : bank) {
+      assertTrue(acc.balance() >= 0);
+      total += acc.balance();
+    }
+    assertEquals(n * 1_000L, total);
+  }
+}
@@ -0,0 +1,47 @@
+package edu.eci.arsw.demos;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TransferWorkloadTest {
+  @Test
+  void zipfConcentratesTrafficOnTheFirstRanks() {
+    var rnd = ThreadLocalRandom.current();
+    int[] skewed = new int[100];
+    int[] uniform = new int[100];
+    var zipf = new TransferWorkload.Zipf(100, 1.2);
+    var flat = new TransferWorkload.Zipf(100, 0);
+    for (int i = 0; i < 100_000; i++) {
+      skewed[zipf.next(rnd)]++;
+      uniform[flat.next(rnd)]++;
+    }
+    assertTrue(skewed[0] > 20_000, "rank 0 drew " + skewed[0]);
+    assertTrue(skewed[0] > 10 * skewed[50]);
+    assertTrue(uniform[0] > 700 && uniform[0] < 1_300, "rank 0 drew " + uniform[0]);
+  }
+
+  @Test
+  void everyStrategyConservesMoneyUnderSkew() throws Exception {
+    for (String strategy : new String[]{"ordered", "trylock", "optimistic", "batch"}) {
+      var config = new TransferWorkload.Config(50, 1.1, 8, true, "1..500", Duration.ofMillis(150), strategy, 20);
+      var r = TransferWorkload.run(config);
+      assertTrue(r.conserved(), strategy + ": " + r.total() + " vs " + r.expectedTotal());
+      assertTrue(r.applied() > 0, strategy);
+      assertEquals(r.calls(), r.latency().count(), strategy);
+    }
+  }
+
+  @Test
+  void rejectsBadConfigurations() {
+    assertThrows(IllegalArgumentException.class,
+            () -> new TransferWorkload.Config(1, 1, 1, true, "1", Duration.ofSeconds(1), "ordered", 1));
+    assertThrows(IllegalArgumentException.class,
+            () -> new TransferWorkload.Config(10, 1, 1, true, "5..2", Duration.ofSeconds(1), "ordered", 1));
+    assertThrows(IllegalArgumentException.class,
+            () -> new TransferWorkload.Config(10, 1, 1, true, "1", Duration.ofSeconds(1), "naive", 1));
+  }
+}
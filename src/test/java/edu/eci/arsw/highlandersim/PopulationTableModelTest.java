@@ -0,0 +1,68 @@
+package edu.eci.arsw.highlandersim;
+
+import edu.eci.arsw.immortals.ImmortalManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.event.TableModelEvent;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+final class PopulationTableModelTest {
+  @Test
+  void notifiesOnlyTheChangedRows() {
+    int n = 100_000;
+    int[] ids = new int[n];
+    int[] health = new int[n];
+    Arrays.setAll(ids, i -> i);
+    Arrays.fill(health, 100);
+    boolean[] alive = new boolean[n];
+    Arrays.fill(alive, true);
+    var first = new PopulationTableModel.Rows(n, ids, health, new long[n], alive);
+
+    int[] health2 = health.clone();
+    boolean[] alive2 = alive.clone();
+    health2[10] = 90;
+    health2[11] = 90;
+    health2[20] = 0;
+    alive2[20] = false;
+    var second = new PopulationTableModel.Rows(n, ids, health2, new long[n], alive2);
+
+    var model = new PopulationTableModel();
+    List<TableModelEvent> events = new ArrayList<>();
+    model.addTableModelListener(events::add);
+    model.apply(PopulationTableModel.Change.between(model.rows(), first));
+    model.apply(PopulationTableModel.Change.between(first, second));
+    model.apply(PopulationTableModel.Change.between(second, new PopulationTableModel.Rows(n, ids, health2, new long[n], alive2)));
+
+    assertEquals(3, events.size());
+    assertEquals(Integer.MAX_VALUE, events.get(0).getLastRow());
+    assertEquals(10, events.get(1).getFirstRow());
+    assertEquals(11, events.get(1).getLastRow());
+    assertEquals(20, events.get(2).getFirstRow());
+    assertEquals(20, events.get(2).getLastRow());
+    assertEquals(n, model.getRowCount());
+    assertEquals("Immortal-20", model.getValueAt(20, 0));
+    assertEquals("DEAD", model.getValueAt(20, 3));
+    assertEquals(100L * n - 120, second.totalHealth);
+    assertEquals(1, second.deadCount());
+  }
+
+  @Test
+  void readsTheSameRowsAsTheStatusSnapshot() {
+    for (String engine : List.of("threads", "arrays")) {
+      var m = new ImmortalManager(500, "cas", 100, 10, engine);
+      try {
+        var rows = PopulationTableModel.Rows.read(m, 0);
+        var statuses = m.statusSnapshot();
+        assertEquals(statuses.size(), rows.size(), engine);
+        for (int i = 0; i < rows.size(); i++) {
+          assertEquals(statuses.get(i).name(), rows.name(i), engine);
+          assertEquals(statuses.get(i).health(), rows.health[i], engine);
+        }
+      } finally {
+        m.close();
+      }
+    }
+  }
+}
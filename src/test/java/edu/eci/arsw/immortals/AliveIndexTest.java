@@ -0,0 +1,77 @@
+package edu.eci.arsw.immortals;
+
+import edu.eci.arsw.concurrency.PauseController;
+import java.util.HashSet;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class AliveIndexTest {
+  private final ScoreBoard board = new ScoreBoard();
+  private final PauseController controller = new PauseController();
+
+  @Test
+  void swapRemoveKeepsEveryOtherMember() {
+    var index = new AliveIndex();
+    Immortal[] all = new Immortal[100];
+    for (int i = 0; i < all.length; i++) {
+      all[i] = new Immortal("Immortal-" + i, 100, 10, index, board, controller);
+      index.add(all[i]);
+    }
+    for (int i = 0; i < all.length; i += 2) assertTrue(index.remove(all[i]));
+    assertFalse(index.remove(all[0]));
+    assertEquals(50, index.size());
+
+    var seen = new HashSet<Immortal>();
+    var rnd = ThreadLocalRandom.current();
+    for (int i = 0; i < 10_000; i++) seen.add(index.sample(rnd));
+    assertEquals(50, seen.size());
+    for (Immortal im : seen) assertEquals(1, Integer.parseInt(im.name().substring(9)) % 2);
+  }
+
+  @Test
+  void fightDuringShutdownKeepsLivingDefenders() {
+    var index = new AliveIndex();
+    var attacker = new Immortal("Immortal-0", 100, 10, index, board, controller);
+    var defender = new Immortal("Immortal-1", 100, 10, index, board, controller);
+    index.add(attacker);
+    index.add(defender);
+    defender.stop();
+
+    attacker.executeFight(defender);
+    assertEquals(90, defender.getHealth());
+    assertEquals(2, index.size());
+
+    var victim = new Immortal("Immortal-2", 10, 10, index, board, controller);
+    index.add(victim);
+    attacker.executeFight(victim);
+    assertEquals(2, index.size());
+    assertFalse(index.remove(victim));
+  }
+
+  @Test
+  void emptyIndexSamplesNull() {
+    var index = new AliveIndex();
+    var im = new Immortal("Immortal-0", 100, 10, index, board, controller);
+    index.add(im);
+    index.remove(im);
+    assertNull(index.sample(ThreadLocalRandom.current()));
+  }
+
+  @Test
+  void removeIgnoresMembersOfAnotherIndex() {
+    var first = new AliveIndex();
+    var second = new AliveIndex();
+    var a = new Immortal("Immortal-0", 100, 10, first, board, controller);
+    var b = new Immortal("Immortal-1", 100, 10, second, board, controller);
+    first.add(a);
+    second.add(b);
+    assertFalse(first.remove(b));
+    assertEquals(1, first.size());
+    assertEquals(1, second.size());
+    assertTrue(second.remove(b));
+  }
+}
@@ -0,0 +1,88 @@
+package edu.eci.arsw.immortals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class CheckpointTest {
+  @TempDir Path dir;
+
+  @Test
+  void legacyLockModeRestoresAsOrdered() throws Exception {
+    Path file = dir.resolve("lock.ckpt");
+    new ImmortalManager(5, "ordered", 100, 10).checkpoint(file);
+    try (var ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      ch.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 2), 12);
+    }
+    assertEquals("ordered", ImmortalManager.restore(file).fightStrategy().mode());
+  }
+
+  @Test
+  void threadsEngineRoundTripsWhileRunning() throws Exception {
+    var m = new ImmortalManager(50, "cas", 1_000, 10);
+    m.start();
+    awaitFights(m, 1);
+    Path file = dir.resolve("threads.ckpt");
+    long bytes = m.checkpoint(file);
+    assertTrue(m.isRunning());
+    m.pause();
+    m.stop();
+
+    var restored = ImmortalManager.restore(file);
+    assertEquals(bytes, Files.size(file));
+    assertEquals("cas", restored.fightStrategy().mode());
+    var score = restored.scoreBoard().snapshot();
+    assertTrue(score.fights() > 0);
+    assertEquals(restored.initialTotalHealth() - score.healthLost(), restored.totalHealth());
+    assertEquals(restored.initialTotalHealth() - score.healthLost(), restored.consistentSnapshot().totalHealth());
+
+    restored.start();
+    awaitFights(restored, score.fights() + 1);
+    restored.pause();
+    var after = restored.scoreBoard().snapshot();
+    long sum = restored.totalHealth();
+    restored.stop();
+    assertTrue(after.fights() > score.fights());
+    assertEquals(50L * 1_000 - after.healthLost(), sum);
+  }
+
+  private static void awaitFights(ImmortalManager m, long fights) throws InterruptedException {
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (m.scoreBoard().totalFights() < fights && System.nanoTime() < deadline) Thread.sleep(10);
+  }
+
+  @Test
+  void arraysEngineRestoresTheSameRows() throws Exception {
+    var m = new ImmortalManager(10_000, "cas", 50, 10, "arrays");
+    m.start();
+    Thread.sleep(100);
+    m.pause();
+    m.removeDead();
+    Path file = dir.resolve("arrays.ckpt");
+    m.checkpoint(file);
+    var expected = m.statusSnapshot();
+    var score = m.scoreBoard().snapshot();
+    m.stop();
+
+    var restored = ImmortalManager.restore(file);
+    assertEquals(expected, restored.statusSnapshot());
+    assertEquals(score, restored.scoreBoard().snapshot());
+    assertEquals(10_000L * 50, restored.initialTotalHealth());
+  }
+
+  @Test
+  void rejectsFilesThatAreNotCheckpoints() throws IOException {
+    Path file = dir.resolve("junk.ckpt");
+    Files.write(file, new byte[128]);
+    assertThrows(IOException.class, () -> ImmortalManager.restore(file));
+  }
+}
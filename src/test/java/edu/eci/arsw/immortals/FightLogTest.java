@@ -0,0 +1,180 @@
+package edu.eci.arsw.immortals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class FightLogTest {
+  @TempDir Path dir;
+
+  @Test
+  void everyRecordReachesDiskAcrossSegments() throws Exception {
+    int perThread = 2_000;
+    var log = FightLog.open(dir, 16 * 1024, 4, 100, 10);
+    List<Thread> writers = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      int me = t;
+      writers.add(Thread.ofVirtual().start(() -> {
+        for (int i = 0; i < perThread; i++) log.fight(me, (me + 1) % 4, 10, 5, 105, 90);
+      }));
+    }
+    for (Thread w : writers) w.join();
+    log.mark(4L * perThread);
+    log.close();
+
+    long bytes = 0;
+    int segments = 0;
+    try (var files = Files.newDirectoryStream(dir, "fights-*.log")) {
+      for (Path p : files) {
+        bytes += Files.size(p) - FightLog.HEADER_BYTES;
+        segments++;
+      }
+    }
+    assertEquals(4L * perThread, log.records());
+    assertEquals((4L * perThread + 1) * FightLog.RECORD_BYTES, bytes);
+    assertEquals(log.segments(), segments);
+    assertTrue(segments > 1, "expected rotation, got " + segments + " segment(s)");
+  }
+
+  @Test
+  void marksWhileTheWriterRotatesSegments() throws Exception {
+    var log = FightLog.open(dir, 16 * 1024, 2, 100, 10);
+    var appender = Thread.ofVirtual().start(() -> {
+      for (int i = 0; i < 20_000; i++) log.fight(0, 1, 10, 5, 105, 90);
+    });
+    int marks = 20;
+    for (int i = 0; i < marks; i++) {
+      log.mark(i);
+      Thread.sleep(2);
+    }
+    appender.join();
+    log.close();
+
+    long bytes = 0;
+    try (var files = Files.newDirectoryStream(dir, "fights-*.log")) {
+      for (Path p : files) bytes += Files.size(p) - FightLog.HEADER_BYTES;
+    }
+    assertTrue(log.segments() > 1, "expected rotation, got " + log.segments() + " segment(s)");
+    assertEquals((log.records() + marks) * FightLog.RECORD_BYTES, bytes);
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"threads", "arrays", "actors"})
+  void replayRebuildsTheCheckpoint(String engine) throws Exception {
+    Path logDir = dir.resolve("log");
+    Path file = dir.resolve(engine + ".ckpt");
+    ImmortalManager m;
+    System.setProperty("fightlog", logDir.toString());
+    try {
+      m = new ImmortalManager(engine.equals("arrays") ? 2_000 : 40, "cas", 200, 10, engine);
+    } finally {
+      System.clearProperty("fightlog");
+    }
+    m.start();
+    awaitFights(m, 200);
+    m.checkpoint(file);
+    // Sigue peleando despues de la marca: el replay tiene que cortar ahi.
+    awaitFights(m, m.scoreBoard().totalFights() + 200);
+    m.close();
+
+    var result = FightLogReplay.check(logDir, file);
+    assertTrue(result.matches(), result.describe());
+    assertTrue(result.records() > result.fights() / 2);
+    assertTrue(result.fights() >= 200);
+  }
+
+  @Test
+  void replayReportsDifferences() throws Exception {
+    Path logDir = dir.resolve("log");
+    System.setProperty("fightlog", logDir.toString());
+    ImmortalManager m;
+    try {
+      m = new ImmortalManager(20, "cas", 200, 10);
+    } finally {
+      System.clearProperty("fightlog");
+    }
+    Path file = dir.resolve("start.ckpt");
+    m.checkpoint(file);
+    m.start();
+    awaitFights(m, 100);
+    m.close();
+    // Checkpoint de otra corrida: el log no tiene su marca, se aplica entero y no coincide.
+    Path later = dir.resolve("later.ckpt");
+    var fresh = new ImmortalManager(20, "cas", 200, 10);
+    fresh.start();
+    awaitFights(fresh, 100);
+    fresh.checkpoint(later);
+    fresh.close();
+
+    assertTrue(FightLogReplay.check(logDir, file).matches());
+    var result = FightLogReplay.check(logDir, later);
+    assertFalse(result.matches());
+    assertFalse(result.markFound());
+  }
+
+  @Test
+  void eachManagerLogsToItsOwnRunAndReplayFindsTheRightOne() throws Exception {
+    Path base = dir.resolve("log");
+    Path file = dir.resolve("first.ckpt");
+    ImmortalManager first;
+    ImmortalManager second;
+    System.setProperty("fightlog", base.toString());
+    try {
+      first = new ImmortalManager(30, "cas", 200, 10);
+      first.start();
+      awaitFights(first, 100);
+      first.checkpoint(file);
+      first.close();
+      second = new ImmortalManager(30, "cas", 200, 10);
+      second.start();
+      awaitFights(second, 100);
+      second.close();
+    } finally {
+      System.clearProperty("fightlog");
+    }
+
+    try (var runs = Files.newDirectoryStream(base, "run-*")) {
+      int n = 0;
+      for (Path ignored : runs) n++;
+      assertEquals(2, n, "the second manager must not erase the first run");
+    }
+    var result = FightLogReplay.check(base, file);
+    assertTrue(result.matches(), result.describe());
+    assertEquals(first.fightLog().directory(), result.run());
+
+    try (var rebuilt = FightLogReplay.rebuild(base, file)) {
+      var restored = ImmortalManager.restore(file);
+      assertEquals(restored.statusSnapshot(), rebuilt.statusSnapshot());
+      assertEquals(restored.scoreBoard().totalFights(), rebuilt.scoreBoard().totalFights());
+      restored.close();
+    }
+  }
+
+  @Test
+  void rejectedArgumentsDoNotLeaveAWriterBehind() {
+    Path base = dir.resolve("log");
+    System.setProperty("fightlog", base.toString());
+    try {
+      assertThrows(IllegalArgumentException.class, () -> new ImmortalManager(10, "cas", 200, 10, "threads", 0));
+    } finally {
+      System.clearProperty("fightlog");
+    }
+    assertFalse(Thread.getAllStackTraces().keySet().stream()
+            .anyMatch(t -> t.getName().equals("fight-log-writer") && t.isAlive()));
+    assertFalse(Files.exists(base));
+  }
+
+  private static void awaitFights(ImmortalManager m, long fights) throws InterruptedException {
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (m.scoreBoard().totalFights() < fights && System.nanoTime() < deadline) Thread.sleep(10);
+  }
+}
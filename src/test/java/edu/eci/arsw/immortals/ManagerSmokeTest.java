@@ -1,6 +1,9 @@
 package edu.eci.arsw.immortals;
 
+import java.util.List;
 import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 final class ManagerSmokeTest {
@@ -56,7 +59,173 @@ final class ManagerSmokeTest {
     m.stop();
   }
 
+  @Test
+  void churnWhileRunning() throws Exception {
+    var m = new ImmortalManager(50, "ordered", 30, 10);
+    m.start();
+    for (int i = 0; i < 500; i++) {
+      m.spawn();
+      if (i % 50 == 0) m.removeDead();
+    }
+    Thread.sleep(100);
+    m.pause();
+    m.removeDead();
+    int alive = m.aliveCount();
+    var snapshot = m.populationSnapshot();
+    m.stop();
+    assertEquals(alive, snapshot.size());
+    assertEquals(snapshot.size(), new java.util.HashSet<>(snapshot).size());
+  }
+
+  @Test
+  void consistentSnapshotWithoutPause() throws Exception {
+    for (String[] mode : new String[][]{{"ordered", "threads"}, {"cas", "threads"}, {"cas", "arrays"}}) {
+      int n = 300;
+      var m = new ImmortalManager(n, mode[0], 100, 10, mode[1]);
+      m.start();
+      for (int i = 0; i < 20; i++) {
+        Thread.sleep(10);
+        HealthSnapshot snap = m.consistentSnapshot();
+        assertEquals(n * 100L - snap.healthLost(), snap.totalHealth(), mode[0] + "/" + mode[1]);
+        assertEquals(n, snap.alive() + snap.dead());
+      }
+      assertTrue(m.consistentSnapshot().fights() > 0);
+      m.stop();
+    }
+  }
+
+  @Test
+  void casKeepsInvariant() throws Exception {
+    var m = new ImmortalManager(50, "cas", 10_000, 10);
+    m.start();
+    Thread.sleep(200);
+    m.pause();
+    long fights = m.scoreBoard().totalFights();
+    long sum = m.totalHealth();
+    for (Immortal im : m.populationSnapshot()) assertTrue(im.getHealth() >= 0);
+    m.stop();
+    assertTrue(fights > 0);
+    assertEquals(50L * 10_000 - fights * 5, sum);
+  }
 
+  @Test
+  void lockStrategiesKeepInvariant() throws Exception {
+    for (String mode : new String[]{"ordered", "trylock", "stamped"}) {
+      var m = new ImmortalManager(50, mode, 10_000, 10);
+      assertEquals(mode, m.fightStrategy().mode());
+      m.start();
+      Thread.sleep(150);
+      m.pause();
+      long fights = m.scoreBoard().totalFights();
+      long sum = m.totalHealth();
+      m.stop();
+      assertTrue(fights > 0, mode);
+      assertEquals(50L * 10_000 - fights * 5, sum, mode);
+    }
+  }
 
+  @Test
+  void arenasKeepGlobalInvariantAndMigrate() throws Exception {
+    for (String mode : new String[]{"ordered", "cas"}) {
+      var m = new ImmortalManager(64, mode, 10_000, 10, "threads", 4);
+      m.start();
+      Thread.sleep(300);
+      m.pause();
+      long fights = m.scoreBoard().totalFights();
+      long sum = m.totalHealth();
+      var arenas = m.arenaStatus();
+      m.stop();
+      assertEquals(4, arenas.size(), mode);
+      assertTrue(fights > 0, mode);
+      assertEquals(64L * 10_000 - fights * 5, sum, mode);
+      assertEquals(fights, arenas.stream().mapToLong(ArenaStatus::fights).sum(), mode);
+      assertEquals(64, arenas.stream().mapToInt(ArenaStatus::alive).sum(), mode);
+      assertTrue(arenas.stream().mapToLong(ArenaStatus::migrationsIn).sum() > 0, mode);
+    }
+  }
 
+  @Test
+  void actorsKeepInvariantAndQuiesce() throws Exception {
+    var m = new ImmortalManager(100, "ordered", 200, 10, "actors");
+    m.start();
+    for (int i = 0; i < 5; i++) {
+      Thread.sleep(60);
+      var paused = m.pause();
+      var score = m.scoreBoard().snapshot();
+      long sum = m.totalHealth();
+      m.resume();
+      assertTrue(paused.quiesced(), "round " + i);
+      assertEquals(100L * 200 - score.healthLost(), sum, "round " + i);
+    }
+    HealthSnapshot snap = m.consistentSnapshot();
+    m.stop();
+    assertEquals(100L * 200 - snap.healthLost(), snap.totalHealth());
+    assertTrue(m.scoreBoard().totalFights() > 0);
+    assertTrue(m.scoreBoard().kills() > 0);
+  }
+
+  @Test
+  void unknownFightModeIsRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new ImmortalManager(2, "fast", 100, 10));
+  }
+
+  @Test
+  void arraysEngineKeepsInvariant() throws Exception {
+    var m = new ImmortalManager(100_000, "cas", 1_000_000, 10, "arrays");
+    m.start();
+    Thread.sleep(200);
+    m.pause();
+    long fights = m.scoreBoard().totalFights();
+    long sum = m.totalHealth();
+    m.stop();
+    assertTrue(fights > 0);
+    assertEquals(100_000L * 1_000_000 - fights * 5, sum);
+  }
+
+  @Test
+  void scoreBoardAccountsForEveryHealthPoint() throws Exception {
+    var m = new ImmortalManager(200, "ordered", 30, 10);
+    m.start();
+    Thread.sleep(300);
+    m.pause();
+    var score = m.scoreBoard().snapshot();
+    long sum = m.totalHealth();
+    List<Immortal> population = m.populationSnapshot();
+    m.stop();
+    assertEquals(200L * 30 - score.healthLost(), sum);
+    assertEquals(score.fights(), score.wins().total());
+    assertEquals(population.size(), score.wins().size());
+    for (int i = 0; i < population.size(); i++) {
+      assertEquals(population.get(i).name(), "Immortal-" + score.wins().id(i));
+      assertEquals(population.get(i).wins(), score.wins().count(i));
+    }
+    assertTrue(score.kills() > 0);
+  }
+
+  @Test
+  void arraysEngineSnapshotCarriesWinsPerImmortal() throws Exception {
+    var m = new ImmortalManager(1_000, "cas", 1_000_000, 10, "arrays");
+    m.start();
+    Thread.sleep(100);
+    m.pause();
+    var score = m.scoreBoard().snapshot();
+    m.stop();
+    assertEquals(1_000, score.wins().size());
+    assertEquals(score.fights(), score.wins().total());
+    assertTrue(score.wins().count(score.wins().best()) > 0);
+  }
+
+  @Test
+  void arraysEngineRemovesDead() throws Exception {
+    var m = new ImmortalManager(1_000, "cas", 20, 10, "arrays");
+    m.start();
+    Thread.sleep(200);
+    m.pause();
+    m.removeDead();
+    int alive = m.aliveCount();
+    int size = m.populationSnapshot().size();
+    m.stop();
+    assertEquals(alive, size);
+    assertTrue(size < 1_000);
+  }
 }
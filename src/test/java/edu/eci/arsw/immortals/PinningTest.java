@@ -0,0 +1,92 @@
+package edu.eci.arsw.immortals;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Corre el motor "threads" con cada estrategia salvo "monitor", y los motores
+ * "actors", "arrays" y "rounds" (que ignoran la estrategia), bajo carga con
+ * pausas y reanudaciones en medio, escuchando sin umbral
+ * {@code jdk.VirtualThreadPinned} (un hilo virtual que estaciona fijado a su
+ * portador) y {@code jdk.JavaMonitorEnter} desde hilos virtuales (en Java 21
+ * esperar un monitor bloquea al portador sin emitir el primero) sobre objetos
+ * del proyecto. Cualquiera de los dos hace fallar la prueba.
+ */
+final class PinningTest {
+  private static final Object MONITOR = new Object();
+
+  @Test
+  void fightPathsNeverPinVirtualThreads() throws Exception {
+    List<String> pinned = new CopyOnWriteArrayList<>();
+    try (var stream = new RecordingStream()) {
+      stream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+      stream.onEvent("jdk.VirtualThreadPinned", e -> pinned.add(describe(e)));
+      stream.enable("jdk.JavaMonitorEnter").withThreshold(Duration.ZERO).withStackTrace();
+      stream.onEvent("jdk.JavaMonitorEnter", e -> {
+        if (e.getThread() != null && e.getThread().isVirtual() && ownMonitor(e)) pinned.add(describe(e));
+      });
+      stream.startAsync();
+
+      // Control: estacionar dentro de synchronized si fija el hilo; si esto no se ve, la prueba no mide nada.
+      Thread.ofVirtual().start(() -> {
+        synchronized (MONITOR) {
+          try {
+            Thread.sleep(5);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      }).join();
+      awaitEvents(pinned, 1);
+      assertFalse(pinned.isEmpty(), "the JFR stream did not report the deliberate pinning");
+      pinned.clear();
+
+      for (String mode : new String[]{"ordered", "naive", "trylock", "stamped", "cas"}) {
+        runUnderLoad("threads", mode);
+      }
+      for (String engine : new String[]{"actors", "arrays", "rounds"}) runUnderLoad(engine, "cas");
+      stream.stop();
+    }
+    assertTrue(pinned.isEmpty(), "virtual threads pinned:\n" + String.join("\n", pinned));
+  }
+
+  private static void runUnderLoad(String engine, String mode) throws InterruptedException {
+    try (var m = new ImmortalManager(500, mode, 1_000_000, 10, engine)) {
+      m.start();
+      for (int i = 0; i < 3; i++) {
+        Thread.sleep(80);
+        m.pause();
+        m.resume();
+      }
+    }
+  }
+
+  private static void awaitEvents(List<String> seen, int n) throws InterruptedException {
+    long deadline = System.nanoTime() + 5_000_000_000L;
+    while (seen.size() < n && System.nanoTime() < deadline) Thread.sleep(20);
+  }
+
+  /** Solo monitores de objetos del proyecto; los del cargador de clases del JDK al arrancar no cuentan. */
+  private static boolean ownMonitor(RecordedEvent e) {
+    var monitorClass = e.getClass("monitorClass");
+    return monitorClass != null && monitorClass.getName().startsWith("edu.eci.arsw.");
+  }
+
+  private static String describe(RecordedEvent e) {
+    var sb = new StringBuilder(e.getEventType().getName() + " " + e.getDuration().toNanos() / 1000 + " us");
+    if (e.getStackTrace() != null) {
+      for (RecordedFrame f : e.getStackTrace().getFrames()) {
+        if (f.isJavaFrame()) sb.append("\n  at ").append(f.getMethod().getType().getName()).append('.')
+                .append(f.getMethod().getName());
+      }
+    }
+    return sb.toString();
+  }
+}
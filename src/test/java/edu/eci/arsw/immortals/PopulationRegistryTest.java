@@ -0,0 +1,56 @@
+package edu.eci.arsw.immortals;
+
+import edu.eci.arsw.concurrency.PauseController;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+final class PopulationRegistryTest {
+  private final ScoreBoard board = new ScoreBoard();
+  private final PauseController controller = new PauseController();
+  private final AliveIndex index = new AliveIndex();
+
+  @Test
+  void iterationSeesEveryStayingMemberOnceWhileOthersAreRemoved() throws InterruptedException {
+    var registry = new PopulationRegistry();
+    List<Immortal> keepers = new ArrayList<>();
+    List<Immortal> victims = new ArrayList<>();
+    for (int i = 0; i < 8_000; i++) {
+      var im = new Immortal("Immortal-" + i, 100, 10, index, board, controller);
+      registry.add(im);
+      (i % 4 == 0 ? keepers : victims).add(im);
+    }
+
+    var done = new AtomicBoolean();
+    var writer = Thread.ofPlatform().start(() -> {
+      for (int round = 0; round < 20; round++) {
+        for (Immortal v : victims) registry.remove(v);
+        for (Immortal v : victims) registry.add(v);
+      }
+      for (Immortal v : victims) registry.remove(v);
+      done.set(true);
+    });
+
+    int passes = 0;
+    while (!done.get() || passes == 0) {
+      var seen = new IdentityHashMap<Immortal, Integer>();
+      for (Immortal im : registry) {
+        if (seen.merge(im, 1, Integer::sum) > 1) fail(im.name() + " seen twice in one pass");
+      }
+      for (Immortal k : keepers) {
+        if (!seen.containsKey(k)) fail(k.name() + " missed while others were removed (pass " + passes + ")");
+      }
+      passes++;
+    }
+    writer.join();
+
+    assertEquals(keepers.size(), registry.size());
+    assertEquals(keepers, registry.snapshot());
+    assertTrue(registry.view().slots() < 2 * keepers.size(), "holes were never compacted");
+  }
+}
@@ -0,0 +1,88 @@
+package edu.eci.arsw.immortals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class RoundEngineTest {
+  @Test
+  void sameSeedGivesTheSameRunWithAnyParallelism() {
+    List<ImmortalStatus> a = run(7, 1);
+    List<ImmortalStatus> b = run(7, 4);
+    List<ImmortalStatus> c = run(8, 4);
+    assertEquals(a, b);
+    assertNotEquals(a, c);
+  }
+
+  @Test
+  void everyLivingImmortalFightsOncePerRound() {
+    var m = manager(1, 10_001);
+    assertEquals(5_000, m.runRounds(1));
+    var score = m.scoreBoard().snapshot();
+    assertEquals(5_000, score.fights());
+    long wins = 0;
+    for (ImmortalStatus s : m.statusSnapshot()) wins += s.wins();
+    assertEquals(5_000, wins);
+    assertEquals(m.initialTotalHealth() - score.healthLost(), m.totalHealth());
+  }
+
+  @Test
+  void runningRoundsKeepTheInvariant() throws Exception {
+    var m = manager(3, 5_000);
+    assertEquals("rounds", m.engine());
+    m.start();
+    Thread.sleep(200);
+    var live = m.consistentSnapshot();
+    assertEquals(m.initialTotalHealth() - live.healthLost(), live.totalHealth());
+    m.pause();
+    var score = m.scoreBoard().snapshot();
+    assertTrue(score.fights() > 0);
+    assertEquals(m.initialTotalHealth() - score.healthLost(), m.totalHealth());
+    assertThrows(IllegalStateException.class, () -> m.runRounds(1));
+    m.stop();
+  }
+
+  @Test
+  void roundsArePacedAndStopWhilePaused() throws Exception {
+    System.setProperty("rounds.paceMs", "50");
+    ImmortalManager m;
+    try {
+      m = new ImmortalManager(100, "cas", 1_000_000, 10, "rounds");
+    } finally {
+      System.clearProperty("rounds.paceMs");
+    }
+    m.start();
+    Thread.sleep(260);
+    m.pause();
+    long fights = m.scoreBoard().totalFights();
+    Thread.sleep(120);
+    long stillPaused = m.scoreBoard().totalFights();
+    m.stop();
+    // 50 peleas por ronda y una ronda cada 50 ms: a lo sumo 6 rondas en 260 ms.
+    assertTrue(fights > 0 && fights <= 6 * 50, "fights " + fights);
+    assertEquals(fights, stillPaused);
+  }
+
+  private static List<ImmortalStatus> run(long seed, int workers) {
+    System.setProperty("workers", Integer.toString(workers));
+    try {
+      var m = manager(seed, 20_000);
+      m.runRounds(40);
+      return m.statusSnapshot();
+    } finally {
+      System.clearProperty("workers");
+    }
+  }
+
+  private static ImmortalManager manager(long seed, int n) {
+    System.setProperty("seed", Long.toString(seed));
+    try {
+      return new ImmortalManager(n, "cas", 100, 10, "rounds");
+    } finally {
+      System.clearProperty("seed");
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package edu.eci.arsw.immortals;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class TelemetrySamplerTest {
+  @Test
+  void managerRecordsSamplesWhileRunning() throws Exception {
+    var m = new ImmortalManager(8, "ordered", 1_000_000, 10);
+    m.start();
+    try {
+      Thread.sleep(m.telemetryPeriod().toMillis() * 3 + 200);
+    } finally {
+      m.stop();
+    }
+    var s = m.telemetry(100);
+    assertTrue(s.size() >= 2, "samples: " + s.size());
+    assertEquals(8, s.alive()[s.size() - 1]);
+    assertTrue(s.totalHealth()[s.size() - 1] > 0);
+    assertTrue(s.timeNanos()[0] < s.timeNanos()[s.size() - 1]);
+  }
+
+  @Test
+  void sampleDoesNotAllocate() {
+    Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+            && t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled());
+    var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    var m = new ImmortalManager(2_000, "ordered", 100, 10);
+    var sampler = new TelemetrySampler(m, Duration.ofSeconds(1), 64);
+    for (int i = 0; i < 1_000; i++) sampler.sample();
+
+    long id = Thread.currentThread().getId();
+    long before = threads.getThreadAllocatedBytes(id);
+    for (int i = 0; i < 10_000; i++) sampler.sample();
+    long allocated = threads.getThreadAllocatedBytes(id) - before;
+
+    assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    assertEquals(2_000, sampler.ring().snapshot(1).alive()[0]);
+  }
+}
@@ -0,0 +1,59 @@
+package edu.eci.arsw.jfr;
+
+import edu.eci.arsw.core.BankAccount;
+import edu.eci.arsw.core.TransferService;
+import edu.eci.arsw.immortals.ImmortalManager;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class JfrEventsTest {
+  @Test
+  void emitsFightPauseTransferAndLockWaitEvents() throws Exception {
+    Path file = Files.createTempFile("immortals", ".jfr");
+    try (var recording = new Recording()) {
+      for (String name : new String[]{"Fight", "LockWait", "Pause", "PauseWait", "Transfer"}) {
+        recording.enable("edu.eci.arsw." + name).withThreshold(Duration.ZERO);
+      }
+      recording.start();
+
+      var m = new ImmortalManager(20, "ordered", 10_000, 10);
+      m.start();
+      Thread.sleep(100);
+      m.pause();
+      m.resume();
+      m.stop();
+      var a = new BankAccount(1, 100);
+      var b = new BankAccount(2, 0);
+      TransferService.transferOrdered(a, b, 10);
+      TransferService.transferTryLock(b, a, 5, Duration.ofSeconds(1));
+
+      recording.stop();
+      recording.dump(file);
+    }
+
+    Map<String, Integer> counts = new HashMap<>();
+    RecordedEvent transfer = null;
+    for (RecordedEvent e : RecordingFile.readAllEvents(file)) {
+      counts.merge(e.getEventType().getName(), 1, Integer::sum);
+      if (e.getEventType().getName().equals("edu.eci.arsw.Transfer") && transfer == null) transfer = e;
+    }
+    Files.deleteIfExists(file);
+
+    assertTrue(counts.getOrDefault("edu.eci.arsw.Fight", 0) > 0);
+    assertTrue(counts.getOrDefault("edu.eci.arsw.LockWait", 0) > 0);
+    assertTrue(counts.getOrDefault("edu.eci.arsw.PauseWait", 0) > 0);
+    assertEquals(1, counts.get("edu.eci.arsw.Pause"));
+    assertEquals(2, counts.get("edu.eci.arsw.Transfer"));
+    assertEquals("ordered", transfer.getString("method"));
+    assertEquals("applied", transfer.getString("outcome"));
+  }
+}
@@ -0,0 +1,29 @@
+package edu.eci.arsw.metrics;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class LatencyHistogramTest {
+  @Test
+  void percentilesStayWithinBucketError() {
+    var h = new LatencyHistogram();
+    for (long v = 1; v <= 100_000; v++) h.record(v * 1_000);
+    assertEquals(100_000, h.count());
+    assertEquals(100_000_000, h.max());
+    for (double p : new double[]{50, 90, 99, 99.9}) {
+      double exact = p / 100 * 100_000_000;
+      double got = h.percentile(p);
+      assertTrue(Math.abs(got - exact) / exact < 0.07, p + " -> " + got);
+    }
+  }
+
+  @Test
+  void indexAndUpperBoundAgree() {
+    for (long v = 0; v < 1_000_000; v += 7) {
+      int i = LatencyHistogram.index(v);
+      assertTrue(v <= LatencyHistogram.upperBound(i));
+      assertTrue(i == 0 || v > LatencyHistogram.upperBound(i - 1));
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package edu.eci.arsw.metrics;
+
+import edu.eci.arsw.core.TransferService;
+import edu.eci.arsw.immortals.ImmortalManager;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class MetricsServerTest {
+  @Test
+  void servesManagerAndTransferMetricsWhileRunning() throws Exception {
+    var m = new ImmortalManager(10, "ordered", 1_000_000, 10);
+    try (var server = MetricsServer.start(new InetSocketAddress("127.0.0.1", 0))) {
+      server.register("immortals", m::writeMetrics);
+      server.register("transfers", TransferService::writeMetrics);
+      m.start();
+      Thread.sleep(100);
+
+      var client = HttpClient.newHttpClient();
+      var request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.port() + "/metrics")).build();
+      HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+      m.stop();
+
+      assertEquals(200, response.statusCode());
+      assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/plain; version=0.0.4"));
+      String body = response.body();
+      assertTrue(body.contains("# TYPE immortals_fights_total counter\n"), body);
+      assertTrue(body.contains("immortals_threads_registered 10\n"), body);
+      assertTrue(body.contains("immortals_paused 0\n"), body);
+      assertTrue(body.contains("transfers_total{outcome=\"applied\"} "), body);
+      assertTrue(body.lines().anyMatch(l -> l.startsWith("immortals_fights_total ") && !l.endsWith(" 0")), body);
+    }
+  }
+
+  @Test
+  void stoppedManagerLeavesTheGlobalServer() throws Exception {
+    try (var server = MetricsServer.startGlobal(0)) {
+      var old = new ImmortalManager(3, "ordered", 1_000_000, 10);
+      old.start();
+      assertTrue(server.scrape().contains("immortals_alive 3\n"));
+
+      var next = new ImmortalManager(5, "ordered", 1_000_000, 10);
+      next.start();
+      old.stop();
+      assertTrue(server.scrape().contains("immortals_alive 5\n"), "stopping the old manager removed the new one");
+
+      next.stop();
+      assertFalse(server.scrape().contains("immortals_"), server.scrape());
+    }
+  }
+
+  @Test
+  void formatsSamples() {
+    String text = new PrometheusText()
+            .gauge("g", "a gauge", 3)
+            .sample("h", "k=\"v\"", 0.25)
+            .toString();
+    assertEquals("# HELP g a gauge\n# TYPE g gauge\ng 3\nh{k=\"v\"} 0.250000000\n", text);
+  }
+}
@@ -0,0 +1,47 @@
+package edu.eci.arsw.metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+final class TelemetryRingTest {
+  @Test
+  void keepsTheNewestSamplesInOrderAfterWrapping() {
+    var ring = new TelemetryRing(4);
+    for (int i = 0; i < 10; i++) ring.append(i, i * 10.0, i, i * 100L, i * 1000L);
+
+    assertEquals(4, ring.size());
+    assertEquals(10, ring.written());
+    var all = ring.snapshot(Integer.MAX_VALUE);
+    assertArrayEquals(new long[]{6, 7, 8, 9}, all.timeNanos());
+    assertArrayEquals(new int[]{6, 7, 8, 9}, all.alive());
+    assertArrayEquals(new long[]{9000}, ring.snapshot(1).pauseNanos());
+    assertEquals(0, new TelemetryRing(3).snapshot(10).size());
+  }
+
+  @Test
+  void readerNeverSeesATornSampleWhileTheWriterWraps() throws InterruptedException {
+    var ring = new TelemetryRing(3);
+    var done = new AtomicBoolean();
+    var writer = Thread.ofPlatform().start(() -> {
+      for (long t = 1; t <= 2_000_000; t++) ring.append(t, t * 2.0, (int) t, t * 3, t * 5);
+      done.set(true);
+    });
+    long checked = 0;
+    while (!done.get() || checked == 0) {
+      var s = ring.snapshot(Integer.MAX_VALUE);
+      for (int k = 0; k < s.size(); k++) {
+        long t = s.timeNanos()[k];
+        if (s.fightsPerSec()[k] != t * 2.0 || s.alive()[k] != (int) t || s.totalHealth()[k] != t * 3
+                || s.pauseNanos()[k] != t * 5 || (k > 0 && t != s.timeNanos()[k - 1] + 1)) {
+          fail("torn sample at " + k + ": t=" + t + " rate=" + s.fightsPerSec()[k] + " alive=" + s.alive()[k]
+                  + " health=" + s.totalHealth()[k] + " pause=" + s.pauseNanos()[k]);
+        }
+      }
+      checked += s.size();
+    }
+    writer.join();
+  }
+}